@@ -0,0 +1,70 @@
+package com.time.tdd.build;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.ConfigurationContainer;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+
+/**
+ * opt-in jmh benchmarks: sources in src/jmh/java see main and test classes, run with
+ * <pre>gradle :module:jmh -Pjmh.includes=Regex -Pjmh.profilers=gc</pre>
+ */
+public class JmhConventionsPlugin implements Plugin<Project> {
+
+    private static final String JMH = "jmh";
+
+    @Override
+    public void apply(Project project) {
+        project.getPluginManager().apply(ConventionsPlugin.class);
+
+        /// source set
+        SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+        SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        SourceSet test = sourceSets.getByName(SourceSet.TEST_SOURCE_SET_NAME);
+        SourceSet jmh = sourceSets.create(JMH, act -> {
+            act.setCompileClasspath(act.getCompileClasspath().plus(main.getOutput()).plus(test.getOutput()));
+            act.setRuntimeClasspath(act.getRuntimeClasspath().plus(main.getOutput()).plus(test.getOutput()));
+        });
+
+        /// dependencies
+        ConfigurationContainer configurations = project.getConfigurations();
+        configurations.getByName(jmh.getImplementationConfigurationName())
+            .extendsFrom(configurations.getByName(test.getImplementationConfigurationName()));
+        configurations.getByName(jmh.getRuntimeOnlyConfigurationName())
+            .extendsFrom(configurations.getByName(test.getRuntimeOnlyConfigurationName()));
+
+        var dep = project.getDependencies();
+        dep.add(jmh.getImplementationConfigurationName(), "org.openjdk.jmh:jmh-core:" + Versions.jmh);
+        dep.add(jmh.getAnnotationProcessorConfigurationName(), "org.openjdk.jmh:jmh-generator-annprocess:" + Versions.jmh);
+
+        /// tasks
+        project.getTasks().register(JMH, JavaExec.class, act -> {
+            act.setGroup("benchmark");
+            act.setDescription("Runs the jmh benchmarks of src/jmh/java");
+            act.setClasspath(jmh.getRuntimeClasspath());
+            act.getMainClass().set("org.openjdk.jmh.Main");
+
+            var results = project.getLayout().getBuildDirectory().file("reports/jmh/results.json");
+            act.getOutputs().file(results);
+            act.getArgumentProviders().add(() -> {
+                List<String> args = new ArrayList<>();
+                Object includes = project.findProperty("jmh.includes");
+                if (includes != null) {
+                    args.add(includes.toString());
+                }
+                Object profilers = project.findProperty("jmh.profilers");
+                for (String profiler : (profilers == null ? "gc" : profilers.toString()).split(",")) {
+                    if (!profiler.isBlank()) {
+                        args.addAll(List.of("-prof", profiler.trim()));
+                    }
+                }
+                args.addAll(List.of("-rf", "json", "-rff", results.get().getAsFile().getAbsolutePath()));
+                return args;
+            });
+        });
+    }
+}
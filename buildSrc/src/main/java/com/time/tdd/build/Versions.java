@@ -2,4 +2,5 @@ package com.time.tdd.build;
 
 public class Versions {
     public static final String springboot = "2.6.7";
+    public static final String jmh = "1.36";
 }
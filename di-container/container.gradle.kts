@@ -1,5 +1,6 @@
 plugins {
     id("com.time.tdd.java-conventions")
+    id("com.time.tdd.jmh-conventions")
     alias(libs.plugins.springBoot)
     alias(libs.plugins.springDependencyManagement)
 }
@@ -14,6 +15,37 @@ dependencies {
     testRuntimeOnly("org.junit.vintage:junit-vintage-engine:5.8.2")
     testRuntimeOnly("org.junit.platform:junit-platform-runner:1.8.2")
     testImplementation("org.mockito:mockito-core:4.3.1")
-    testImplementation("jakarta.inject:jakarta.inject-tck:2.0.1")
+}
+
+// jakarta.inject TCK with every instantiation engine, run by `gradle :container:tck` rather than with the unit tests
+val tck: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations[tck.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[tck.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+    "tckImplementation"("jakarta.inject:jakarta.inject-tck:2.0.1")
+    "tckImplementation"("junit:junit:4.13.2")
+    "tckRuntimeOnly"("org.junit.vintage:junit-vintage-engine:5.8.2")
+}
 
+// -Ptck.maxRatio=1.0 fails engines resolving slower than reflection
+tasks.register<Test>("tck") {
+    group = "verification"
+    description = "Runs the jakarta.inject TCK, recording time and allocations of resolving a car per engine"
+    testClassesDirs = tck.output.classesDirs
+    classpath = tck.runtimeClasspath
+    val report = layout.buildDirectory.file("reports/tck/engines.csv")
+    outputs.file(report)
+    outputs.upToDateWhen { false }
+    systemProperty("tck.report", report.get().asFile.absolutePath)
+    findProperty("tck.maxRatio")?.let { systemProperty("tck.maxRatio", it) }
+    // a suite that can't be built runs no scenario, which must not pass as an empty run
+    afterSuite(KotlinClosure2<TestDescriptor, TestResult, Unit>({ suite, result ->
+        if (suite.parent == null && result.testCount == 0L) {
+            throw GradleException("no TCK scenario ran")
+        }
+    }))
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.time.tdd.di.container;
+
+import java.util.concurrent.TimeUnit;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * cost of a single {@link Context#get(ComponentRef)} per kind of binding, run with {@code -prof gc} for allocations
+ *
+ * @author XuJian
+ * @date 2023-03-19 10:12
+ **/
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark {
+    private static final ComponentRef<Dependency> INSTANCE = ComponentRef.of(Dependency.class);
+    private static final ComponentRef<ConstructorInjection> CONSTRUCTOR = ComponentRef.of(ConstructorInjection.class);
+    private static final ComponentRef<FieldInjection> FIELD = ComponentRef.of(FieldInjection.class);
+    private static final ComponentRef<MethodInjection> METHOD = ComponentRef.of(MethodInjection.class);
+    private static final ComponentRef<Dependency> QUALIFIED = ComponentRef.of(Dependency.class, new SkywalkerLiteral());
+    private static final ComponentRef<Provider<ConstructorInjection>> PROVIDER = new ComponentRef<>() {
+    };
+    private static final ComponentRef<SingletonComponent> SINGLETON = ComponentRef.of(SingletonComponent.class);
+    private static final ComponentRef<PooledComponent> POOLED = ComponentRef.of(PooledComponent.class);
+
+    private Context context;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.scope(Pooled.class, PooledProvider::new);
+        config.bind(Dependency.class, new Dependency() {
+        });
+        config.bind(Dependency.class, new Dependency() {
+        }, new SkywalkerLiteral());
+        config.bind(ConstructorInjection.class, ConstructorInjection.class);
+        config.bind(FieldInjection.class, FieldInjection.class);
+        config.bind(MethodInjection.class, MethodInjection.class);
+        config.bind(SingletonComponent.class, SingletonComponent.class, new SingletonLiteral());
+        config.bind(PooledComponent.class, PooledComponent.class, new PooledLiteral());
+        context = config.getContext();
+    }
+
+    @Benchmark
+    public Dependency instance() {
+        return context.get(INSTANCE).get();
+    }
+
+    @Benchmark
+    public ConstructorInjection constructorInjection() {
+        return context.get(CONSTRUCTOR).get();
+    }
+
+    @Benchmark
+    public FieldInjection fieldInjection() {
+        return context.get(FIELD).get();
+    }
+
+    @Benchmark
+    public MethodInjection methodInjection() {
+        return context.get(METHOD).get();
+    }
+
+    @Benchmark
+    public Dependency qualifier() {
+        return context.get(QUALIFIED).get();
+    }
+
+    @Benchmark
+    public ConstructorInjection provider() {
+        return context.get(PROVIDER).get().get();
+    }
+
+    @Benchmark
+    public SingletonComponent singleton() {
+        return context.get(SINGLETON).get();
+    }
+
+    @Benchmark
+    public PooledComponent pooled() {
+        PooledComponent component = context.get(POOLED).get();
+        context.release(POOLED, component);
+        return component;
+    }
+
+    public static class ConstructorInjection {
+        final Dependency dependency;
+
+        @Inject
+        public ConstructorInjection(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    public static class FieldInjection {
+        @Inject
+        Dependency dependency;
+    }
+
+    public static class MethodInjection {
+        Dependency dependency;
+
+        @Inject
+        void install(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    public static class SingletonComponent {
+        @Inject
+        Dependency dependency;
+    }
+
+    public static class PooledComponent {
+        @Inject
+        Dependency dependency;
+    }
+}
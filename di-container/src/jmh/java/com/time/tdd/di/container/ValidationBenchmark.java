@@ -0,0 +1,75 @@
+package com.time.tdd.di.container;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * how the two steps of {@link ContextConfig#getContext()} scale with the number of bindings,
+ * every component depends on the next {@code fanOut} ones so the graph is both deep and wide
+ *
+ * @author XuJian
+ * @date 2023-03-19 10:40
+ **/
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({"3"})
+    public int fanOut;
+
+    private Map<Component, ComponentProvider<?>> components;
+
+    @Setup
+    public void setup() {
+        components = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            List<ComponentRef<?>> dependencies = new ArrayList<>();
+            for (int d = i + 1; d <= Math.min(i + fanOut, size - 1); d++) {
+                dependencies.add(ComponentRef.of(Dependency.class, new NamedLiteral(String.valueOf(d))));
+            }
+            components.put(new Component(Dependency.class, new NamedLiteral(String.valueOf(i))), new Node(dependencies));
+        }
+    }
+
+    @Benchmark
+    public List<Component> validate() {
+        return DependencyGraph.sort(components);
+    }
+
+    @Benchmark
+    public Context link() {
+        return new ResolutionPlan(components);
+    }
+
+    private record Node(List<ComponentRef<?>> dependencies) implements ComponentProvider<Dependency> {
+        @Override
+        public Dependency get(Context context) {
+            return null;
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return dependencies;
+        }
+    }
+}
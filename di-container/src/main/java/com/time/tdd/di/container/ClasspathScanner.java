@@ -0,0 +1,284 @@
+package com.time.tdd.di.container;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * finds the {@link Inject} and {@link Singleton} classes of packages without loading every class: the class files
+ * of each class path location are read in parallel and only the ones whose constant pool mentions either annotation
+ * are loaded. a location with an index written by the annotation processor isn't scanned at all,
+ * and if the processor verified the graph the index keeps the components in dependency order
+ *
+ * @author XuJian
+ * @date 2023-03-22 20:10
+ **/
+class ClasspathScanner {
+    static final String INDEX = "META-INF/time-tdd/components.idx";
+    static final String VERIFIED = "#verified";
+    private static final List<byte[]> MARKERS = Stream.of(Inject.class, Singleton.class)
+        .map(a -> ("L" + a.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8)).toList();
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private final ClassLoader loader;
+
+    ClasspathScanner(ClassLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @return concrete components of the packages and their sub packages, by name, or in dependency order if
+     * they are all the components of one location indexed by the annotation processor with a verified graph
+     */
+    Scan scan(String... packages) {
+        Map<Path, List<String>> locations = new LinkedHashMap<>();
+        for (String pkg : packages) {
+            String path = pkg.replace('.', '/');
+            try {
+                for (URL url : Collections.list(loader.getResources(path))) {
+                    Path location = location(url, path);
+                    if (location != null) {
+                        locations.computeIfAbsent(location, l -> new ArrayList<>()).add(pkg);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Set<String> names = new TreeSet<>();
+        Map<String, Set<String>> verified = null;
+        try {
+            for (Map.Entry<Path, List<String>> location : locations.entrySet()) {
+                names.addAll(componentsIn(location.getKey(), location.getValue().toArray(String[]::new)));
+            }
+            if (locations.size() == 1) {
+                verified = verified(locations.keySet().iterator().next(), names);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Class<?>> components = new ArrayList<>();
+        for (String name : verified == null ? names : verified.keySet()) {
+            Class<?> type = load(name);
+            if (isComponent(type)) {
+                components.add(type);
+            }
+        }
+        return new Scan(components, verified != null && components.size() == verified.size() ? verified : null);
+    }
+
+    /**
+     * names of the candidate components of the packages in a class path directory or jar
+     */
+    Set<String> componentsIn(Path location, String... packages) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (Root root = Root.of(location)) {
+            Index index = Index.read(root.path());
+            for (String pkg : packages) {
+                if (index != null) {
+                    index.components().keySet().stream().filter(name -> name.startsWith(pkg + ".")).forEach(names::add);
+                } else {
+                    names.addAll(scan(root.path(), pkg, location));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return interfaces bound to each component in dependency order, if the names are all the components of
+     * the verified index of the location
+     */
+    private static Map<String, Set<String>> verified(Path location, Set<String> names) throws IOException {
+        try (Root root = Root.of(location)) {
+            Index index = Index.read(root.path());
+            return index != null && index.verified() && index.components().keySet().equals(names) ? index.components() : null;
+        }
+    }
+
+    private static Set<String> scan(Path root, String pkg, Path location) throws IOException {
+        Path directory = root.resolve(pkg.replace('.', '/'));
+        if (!Files.isDirectory(directory)) {
+            return Set.of();
+        }
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classFiles = files.filter(f -> f.getFileName().toString().endsWith(".class"))
+                .filter(f -> !f.getFileName().toString().contains("-")).toList();
+        }
+        return classFiles.parallelStream().filter(f -> isCandidate(read(f, location))).map(f -> binaryName(root, f))
+            .collect(Collectors.toSet());
+    }
+
+    private static Path location(URL url, String path) throws IOException {
+        try {
+            switch (url.getProtocol()) {
+                case "file" -> {
+                    Path location = Path.of(url.toURI());
+                    for (int i = path.split("/").length; i > 0; i--) {
+                        location = location.getParent();
+                    }
+                    return location;
+                }
+                case "jar" -> {
+                    return Path.of(((JarURLConnection) url.openConnection()).getJarFileURL().toURI());
+                }
+                default -> {
+                    // nothing to list in other locations, e.g. the runtime image
+                    return null;
+                }
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException("can't locate " + url, e);
+        }
+    }
+
+    private static byte[] read(Path classFile, Path location) {
+        try {
+            return Files.readAllBytes(classFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't read " + classFile + " in " + location, e);
+        }
+    }
+
+    private static String binaryName(Path root, Path classFile) {
+        String name = root.relativize(classFile).toString();
+        return name.substring(0, name.length() - ".class".length()).replace(root.getFileSystem().getSeparator(), ".");
+    }
+
+    /**
+     * a concrete class whose constant pool holds the descriptor of {@link Inject} or {@link Singleton},
+     * which is where the types of its annotations are kept
+     */
+    static boolean isCandidate(byte[] classFile) {
+        ByteBuffer buffer = ByteBuffer.wrap(classFile);
+        if (classFile.length < 10 || buffer.getInt() != 0xCAFEBABE) {
+            return false;
+        }
+        buffer.position(8);
+        int count = buffer.getShort() & 0xffff;
+        boolean marked = false;
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get() & 0xff;
+            switch (tag) {
+                case 1 -> {
+                    int length = buffer.getShort() & 0xffff;
+                    marked = marked || isMarker(classFile, buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                }
+                case 7, 8, 16, 19, 20 -> buffer.position(buffer.position() + 2);
+                case 15 -> buffer.position(buffer.position() + 3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> buffer.position(buffer.position() + 4);
+                case 5, 6 -> {
+                    buffer.position(buffer.position() + 8);
+                    // longs and doubles take two entries
+                    i++;
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        int access = buffer.getShort() & 0xffff;
+        return marked && (access & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+    }
+
+    private static boolean isMarker(byte[] classFile, int offset, int length) {
+        for (byte[] marker : MARKERS) {
+            if (marker.length == length && Arrays.equals(classFile, offset, offset + length, marker, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Class<?> load(String name) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException("can't load scanned component " + name, e);
+        }
+    }
+
+    private static boolean isComponent(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isLocalClass() || type.isAnonymousClass()
+            || type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+            return false;
+        }
+        return type.isAnnotationPresent(Singleton.class)
+            || Stream.of(type.getDeclaredConstructors(), type.getDeclaredFields(), type.getDeclaredMethods())
+            .flatMap(Arrays::stream).anyMatch(member -> ((AnnotatedElement) member).isAnnotationPresent(Inject.class));
+    }
+
+    /**
+     * @param verified interfaces bound to each component in dependency order, {@code null} if the graph isn't verified
+     */
+    record Scan(List<Class<?>> components, Map<String, Set<String>> verified) {
+    }
+
+    /**
+     * components listed by the annotation processor, one per line followed by the interfaces they are bound to
+     * when the index starts with {@value #VERIFIED}
+     */
+    private record Index(boolean verified, Map<String, Set<String>> components) {
+        static Index read(Path root) throws IOException {
+            Path index = root.resolve(INDEX);
+            if (!Files.exists(index)) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(index);
+            Map<String, Set<String>> components = new LinkedHashMap<>();
+            for (String line : lines) {
+                String[] names = line.strip().split("\\s+");
+                if (!names[0].isEmpty() && !names[0].startsWith("#")) {
+                    components.put(names[0], Arrays.stream(names).skip(1).collect(Collectors.toSet()));
+                }
+            }
+            return new Index(!lines.isEmpty() && lines.get(0).strip().equals(VERIFIED), components);
+        }
+    }
+
+    /**
+     * root of a class path directory, or of a jar opened as a file system until closed
+     */
+    private record Root(Path path, FileSystem jar) implements AutoCloseable {
+        static Root of(Path location) throws IOException {
+            if (Files.isDirectory(location)) {
+                return new Root(location, null);
+            }
+            FileSystem jar = FileSystems.newFileSystem(location);
+            return new Root(jar.getPath("/"), jar);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (jar != null) {
+                jar.close();
+            }
+        }
+    }
+}
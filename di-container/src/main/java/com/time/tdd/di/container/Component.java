@@ -3,9 +3,59 @@ package com.time.tdd.di.container;
 import java.lang.annotation.Annotation;
 
 /**
+ * binding key. the qualifier is interned by {@link Qualifiers} when the component is created, so comparing
+ * and hashing components only reads the type and an int, and never calls into {@link Annotation#equals(Object)}
+ *
  * @author XuJian
  * @date 2023-03-04 16:48
  **/
-public record Component(Class<?> type, Annotation qualifier) {
-}
+public final class Component {
+    private final Class<?> type;
+    private final Annotation qualifier;
+    private final int qualifierId;
+    private final int hash;
+
+    public Component(Class<?> type, Annotation qualifier) {
+        this(type, qualifier == null ? null : Qualifiers.intern(qualifier));
+    }
+
+    private Component(Class<?> type, Qualifiers.Interned interned) {
+        this.type = type;
+        this.qualifier = interned == null ? null : interned.annotation();
+        this.qualifierId = interned == null ? 0 : interned.id();
+        this.hash = 31 * type.hashCode() + qualifierId;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    public Annotation qualifier() {
+        return qualifier;
+    }
 
+    /**
+     * @return id shared by the components with an equal qualifier, {@code 0} if unqualified
+     */
+    int qualifierId() {
+        return qualifierId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Component that && type == that.type && qualifierId == that.qualifierId;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "Component[type=" + type.getName() + ", qualifier=" + qualifier + "]";
+    }
+}
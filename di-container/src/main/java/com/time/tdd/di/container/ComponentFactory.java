@@ -0,0 +1,20 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+
+/**
+ * factory of one component class generated at compile time, used by {@link ContextConfig} instead of reflection
+ *
+ * @author XuJian
+ * @date 2023-03-18 15:20
+ **/
+public interface ComponentFactory<T> {
+    Class<T> type();
+
+    /**
+     * @param dependencies resolves {@link #dependencies()} by their index
+     */
+    T create(Dependencies dependencies);
+
+    List<ComponentRef<?>> dependencies();
+}
@@ -9,6 +9,25 @@ import java.util.List;
 interface ComponentProvider<T> {
     T get(Context context);
 
+    /**
+     * hand back an instance got from this provider, scopes without a lifecycle just drop it
+     */
+    default void release(T instance) {
+    }
+
+    /**
+     * whether {@link #get(Context)} lends instances that come back through {@link #release(Object)},
+     * the context gives back the ones it injects once the dependent holding them is released
+     */
+    default boolean lends() {
+        return false;
+    }
+
+    /**
+     * close the instances the scope holds, called once when the context is closed
+     */
+    default void dispose() throws Exception {
+    }
 
     default List<ComponentRef<?>> getDependencies() {
         return List.of();
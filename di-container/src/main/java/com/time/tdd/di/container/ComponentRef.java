@@ -3,56 +3,120 @@ package com.time.tdd.di.container;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * refs are parsed once per type: unqualified refs are canonical, cached per class and per parameterized type,
+ * and the anonymous subclass form copies the ref of its type argument cached per subclass.
+ * the caches are held through {@link ClassValue}s of the component classes, so they go away with their class loader.
+ * refs are immutable, so one cached ref is shared by every context, each plan links it to its slots on its own.
+ * a qualified ref interns its qualifier once when created, see {@link Component}, so comparing and hashing refs
+ * never calls into the annotation.
+ * a container may hold a multibinding, e.g. {@code Provider<List<T>>}, which is kept as the inner ref
+ *
  * @author XuJian
  * @date 2023-03-03 00:16
  **/
 public class ComponentRef<ComponentType> {
-    private Type container;
-    private Component component;
-
-
-    ComponentRef(Type type, Annotation qualifier) {
-        init(type, qualifier);
+    private static final ClassValue<ComponentRef<?>> CLASSES = new ClassValue<>() {
+        @Override
+        protected ComponentRef<?> computeValue(Class<?> type) {
+            return new ComponentRef<>(type);
+        }
+    };
+    private static final ClassValue<Map<Type, ComponentRef<?>>> PARAMETERIZED = new ClassValue<>() {
+        @Override
+        protected Map<Type, ComponentRef<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final ClassValue<ComponentRef<?>> SUBCLASSES = new ClassValue<>() {
+        @Override
+        protected ComponentRef<?> computeValue(Class<?> subclass) {
+            return of(((ParameterizedType) subclass.getGenericSuperclass()).getActualTypeArguments()[0]);
+        }
+    };
+
+    private final Type container;
+    private final ComponentRef<?> inner;
+    private final Component component;
+    private final int hash;
+
+    private ComponentRef(Type type) {
+        if (type instanceof ParameterizedType parameterized) {
+            this.container = parameterized.getRawType();
+            Type argument = parameterized.getActualTypeArguments()[0];
+            this.inner = argument instanceof ParameterizedType ? of(argument) : null;
+            this.component = inner != null ? inner.component : new Component((Class<?>) argument, null);
+        } else {
+            this.container = null;
+            this.inner = null;
+            this.component = new Component((Class<?>) type, null);
+        }
+        this.hash = hash();
     }
 
-
-    ComponentRef(Class<ComponentType> componentType) {
-        init(componentType, null);
+    private ComponentRef(ComponentRef<?> parsed, Annotation qualifier) {
+        this.container = parsed.container;
+        this.inner = parsed.inner;
+        this.component = new Component(parsed.component.type(), qualifier);
+        this.hash = hash();
     }
 
     protected ComponentRef() {
-        Type type = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
-        init(type, null);
+        ComponentRef<?> parsed = SUBCLASSES.get(getClass());
+        this.container = parsed.container;
+        this.inner = parsed.inner;
+        this.component = parsed.component;
+        this.hash = parsed.hash;
+    }
+
+    private int hash() {
+        return 31 * (31 * Objects.hashCode(container) + Objects.hashCode(inner)) + component.hashCode();
     }
 
     public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component) {
-        return new ComponentRef<>(component);
+        return (ComponentRef<ComponentType>) CLASSES.get(component);
     }
 
     public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component, Annotation qualifier) {
-        return new ComponentRef<>(component, qualifier);
+        return qualifier == null ? of(component) : new ComponentRef<>(CLASSES.get(component), qualifier);
     }
 
     static ComponentRef of(Type type) {
-        return new ComponentRef(type, null);
+        if (type instanceof Class<?> component) {
+            return CLASSES.get(component);
+        }
+        Class<?> component = componentOf(type);
+        if (component == null) {
+            // fails the same way for every unsupported type argument
+            return new ComponentRef<>(type);
+        }
+        Map<Type, ComponentRef<?>> parameterized = PARAMETERIZED.get(component);
+        ComponentRef<?> ref = parameterized.get(type);
+        if (ref == null) {
+            // parsed outside the map, nested types cache their inner ref in it first
+            ComponentRef<?> parsed = new ComponentRef<>(type);
+            ref = parameterized.putIfAbsent(type, parsed);
+            ref = ref == null ? parsed : ref;
+        }
+        return ref;
     }
 
     static ComponentRef of(Type type, Annotation qualifier) {
-        return new ComponentRef(type, qualifier);
+        return qualifier == null ? of(type) : new ComponentRef<>(of(type), qualifier);
     }
 
-    private void init(Type type, Annotation qualifier) {
-        if (type instanceof ParameterizedType container) {
-            this.container = container.getRawType();
-            Class<ComponentType> componentType = (Class<ComponentType>) container.getActualTypeArguments()[0];
-            this.component = new Component(componentType, qualifier);
-        } else {
-            Class<ComponentType> componentType = (Class<ComponentType>) type;
-            this.component = new Component(componentType, qualifier);
+    private static Class<?> componentOf(Type type) {
+        Type current = type;
+        while (current instanceof ParameterizedType parameterized) {
+            current = parameterized.getActualTypeArguments()[0];
         }
+        return current instanceof Class<?> component ? component : null;
     }
 
     public Component component() {
@@ -67,6 +131,20 @@ public class ComponentRef<ComponentType> {
         return container != null;
     }
 
+    /**
+     * {@code List<T>} or {@code Set<T>} of every binding of {@code T}
+     */
+    boolean isMultibinding() {
+        return container == List.class || container == Set.class;
+    }
+
+    /**
+     * @return ref of the type argument when it is parameterized itself, e.g. the {@code List<T>} of {@code Provider<List<T>>}
+     */
+    ComponentRef<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -76,12 +154,13 @@ public class ComponentRef<ComponentType> {
             return false;
         }
         ComponentRef<?> that = (ComponentRef<?>) o;
-        return Objects.equals(container, that.container) && component.equals(that.component);
+        return hash == that.hash && component.equals(that.component) && Objects.equals(container, that.container)
+            && Objects.equals(inner, that.inner);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(container, component);
+        return hash;
     }
 }
 
@@ -0,0 +1,14 @@
+package com.time.tdd.di.container;
+
+/**
+ * generated index of {@link ComponentFactory}s, found through {@link java.util.ServiceLoader}
+ *
+ * @author XuJian
+ * @date 2023-03-18 15:20
+ **/
+public interface ComponentRegistry {
+    /**
+     * @return the generated factory, or null if the implementation has to be injected reflectively
+     */
+    <T> ComponentFactory<T> factory(Class<T> implementation);
+}
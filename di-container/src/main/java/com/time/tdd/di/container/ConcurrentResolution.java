@@ -0,0 +1,155 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * resolves the dependencies of one constructor side by side. all but the first are forked to the executor,
+ * the constructing thread resolves the first and then claims every fork no worker has started yet,
+ * so it never waits on a queued task and a small or busy executor can't deadlock nested forks.
+ * singletons stay built once by their own lock, the request and thread scope of the constructing thread are carried
+ * into the forks, and so are the lent instances borrowed by the dependent being built. a fork the executor rejects is resolved by the constructing thread, and forks not started when
+ * resolving fails are cancelled
+ *
+ * @author XuJian
+ * @date 2023-03-20 19:30
+ **/
+class ConcurrentResolution {
+
+    private ConcurrentResolution() {
+    }
+
+    /**
+     * @param from index of the first ref in the dependencies the wiring resolves
+     */
+    static Object[] resolve(ResolutionPlan.Wiring wiring, int from, ComponentRef<?>[] refs, Executor executor) {
+        Object[] dependencies = new Object[refs.length];
+        if (forkable(refs) < 2) {
+            for (int i = 0; i < refs.length; i++) {
+                dependencies[i] = wiring.resolve(from + i);
+            }
+            return dependencies;
+        }
+        RequestScope request = RequestScope.active();
+        ThreadScopedProvider.Instances thread = ThreadScopedProvider.current();
+        List<ResolutionPlan.Borrowed> borrowing = ResolutionPlan.borrowing();
+        Fork[] forks = new Fork[refs.length];
+        try {
+            boolean inline = true;
+            for (int i = 0; i < refs.length; i++) {
+                if (!refs[i].isContainer()) {
+                    if (inline) {
+                        inline = false;
+                        continue;
+                    }
+                    forks[i] = new Fork(wiring, from + i, request, thread, borrowing);
+                    submit(forks[i], executor);
+                }
+            }
+            for (int i = 0; i < refs.length; i++) {
+                if (forks[i] == null) {
+                    dependencies[i] = wiring.resolve(from + i);
+                }
+            }
+            for (int i = 0; i < refs.length; i++) {
+                if (forks[i] != null) {
+                    forks[i].run();
+                    dependencies[i] = forks[i].join();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            for (Fork fork : forks) {
+                if (fork != null) {
+                    fork.cancel();
+                }
+            }
+            throw e;
+        }
+        return dependencies;
+    }
+
+    /**
+     * a rejected fork stays unclaimed, so the constructing thread runs it
+     */
+    private static void submit(Fork fork, Executor executor) {
+        try {
+            executor.execute(fork);
+        } catch (RejectedExecutionException e) {
+            // resolved inline
+        }
+    }
+
+    /**
+     * containers are cheap to resolve and never forked
+     */
+    private static int forkable(ComponentRef<?>[] refs) {
+        int count = 0;
+        for (ComponentRef<?> ref : refs) {
+            if (!ref.isContainer()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static class Fork implements Runnable {
+        private final ResolutionPlan.Wiring wiring;
+        private final int index;
+        private final RequestScope request;
+        private final ThreadScopedProvider.Instances thread;
+        private final List<ResolutionPlan.Borrowed> borrowing;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Fork(ResolutionPlan.Wiring wiring, int index, RequestScope request, ThreadScopedProvider.Instances thread,
+             List<ResolutionPlan.Borrowed> borrowing) {
+            this.wiring = wiring;
+            this.index = index;
+            this.request = request;
+            this.thread = thread;
+            this.borrowing = borrowing;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            ThreadScopedProvider.Instances previous = ThreadScopedProvider.enter(thread);
+            List<ResolutionPlan.Borrowed> borrowed = ResolutionPlan.enter(borrowing);
+            try {
+                result.complete(request == null ? wiring.resolve(index) : request.call(() -> wiring.resolve(index)));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                ThreadScopedProvider.leave(previous);
+                ResolutionPlan.leave(borrowed);
+            }
+        }
+
+        /**
+         * keep a worker from starting the fork, it is no longer needed
+         */
+        void cancel() {
+            claimed.set(true);
+        }
+
+        Object join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.time.tdd.di.container;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * instrumentation of a context, set with {@link ContextConfig#monitor(ContainerMonitor)}.
+ * called on the resolving thread, so implementations must be thread safe and cheap.
+ * with {@link #NONE} the context skips instrumentation altogether, no clock is read
+ *
+ * @author XuJian
+ * @date 2023-03-20 14:05
+ **/
+public interface ContainerMonitor {
+    ContainerMonitor NONE = new ContainerMonitor() {
+    };
+
+    /**
+     * a component is about to be resolved
+     *
+     * @param depth 0 for components retrieved from the context, 1 for their dependencies and so on
+     */
+    default void resolved(Component component, int depth) {
+    }
+
+    /**
+     * an instance of the implementation was constructed and injected, including resolving its dependencies
+     */
+    default void constructed(Class<?> implementation, long nanos) {
+    }
+
+    /**
+     * a scope handed out a cached instance, or had to construct one
+     */
+    default void scoped(Scope scope, boolean hit) {
+    }
+
+    /**
+     * the graph snapshot couldn't be written, the context works but the next start validates the bindings again
+     */
+    default void snapshotFailed(Path file, IOException cause) {
+    }
+
+    enum Scope {
+        SINGLETON, POOLED
+    }
+}
@@ -5,8 +5,22 @@ import java.util.Optional;
 /**
  * @author mickey
  */
-public interface Context {
+public interface Context extends AutoCloseable {
 
     <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref);
 
+    /**
+     * return an instance to the scope it was retrieved from, e.g. back into a pool
+     */
+    default <ComponentType> void release(ComponentRef<ComponentType> ref, ComponentType instance) {
+    }
+
+    /**
+     * dispose the instances held by the scopes of the context, {@link AutoCloseable} ones are closed after everything
+     * depending on them. instances of parent contexts are left to the parent
+     */
+    @Override
+    default void close() {
+    }
+
 }
@@ -1,18 +1,24 @@
 package com.time.tdd.di.container;
 
-import com.time.tdd.di.container.exceptions.CyclicDependenciesFoundException;
-import com.time.tdd.di.container.exceptions.DependencyNotFoundException;
 import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Stack;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
@@ -23,11 +29,47 @@ import jakarta.inject.Singleton;
  **/
 public class ContextConfig {
 
-    private final Map<Component, ComponentProvider<?>> components = new HashMap<>();
+    private final Map<Component, ComponentProvider<?>> components = new LinkedHashMap<>();
     private final Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
+    private final List<ComponentRegistry> registries = new ArrayList<>();
+    private final ResolutionPlan parent;
+    private Instantiation instantiation = Instantiation.METHOD_HANDLE;
+    private SingletonWarmUp.Options warmUp;
+    private ContainerMonitor monitor = ContainerMonitor.NONE;
+    private Executor concurrentResolution;
+    private Disposal.Options disposal = new Disposal.Options(Runnable::run, null);
+    private Path snapshotFile;
+    private GraphSnapshot snapshot;
+    private final Map<Component, GraphSnapshot.Binding> bindings = new HashMap<>();
+    private final Map<Class<?>, InjectionMetadata<?>> injected = new HashMap<>();
+    private Map<Component, ComponentProvider<?>> verified;
+    private List<Component> verifiedOrder;
 
     public ContextConfig() {
+        this((ResolutionPlan) null);
+    }
+
+    /**
+     * bindings layered over a context created by another config. components bound here override the parent's
+     * for this context, the parent's components are still resolved and scoped by the parent so its singletons
+     * are shared, and only these bindings are validated. scopes other than the built-in ones are registered per config
+     */
+    public ContextConfig(Context parent) {
+        this(planOf(parent));
+    }
+
+    private ContextConfig(ResolutionPlan parent) {
+        this.parent = parent;
         scope(Singleton.class, SingletonProvider::new);
+        scope(ThreadScoped.class, ThreadScopedProvider::new);
+        scope(RequestScoped.class, provider -> new ScopedProvider<>(provider, RequestScope::current));
+    }
+
+    private static ResolutionPlan planOf(Context parent) {
+        if (parent instanceof ResolutionPlan plan) {
+            return plan;
+        }
+        throw new IllegalArgumentException("parent context must be created by a ContextConfig");
     }
 
     private static <Type> Optional<Annotation> scopeFrom(Class<Type> implementation) {
@@ -35,15 +77,20 @@ public class ContextConfig {
     }
 
     public <Type> void bind(Class<Type> type, Type instance) {
-        components.put(new Component(type, null), (ComponentProvider<Type>) context -> instance);
+        Component component = new Component(type, null);
+        components.put(component, (ComponentProvider<Type>) context -> instance);
+        described(component, new GraphSnapshot.Binding(null, null));
     }
 
     public <Type> void bind(Class<Type> type, Type instance, Annotation... qualifiers) {
         if (Arrays.stream(qualifiers).anyMatch(q -> !q.annotationType().isAnnotationPresent(Qualifier.class))) {
             throw new IllegalComponentException();
         }
+        ComponentProvider<Type> provider = context -> instance;
         for (Annotation qualifier : qualifiers) {
-            components.put(new Component(type, qualifier), context -> instance);
+            Component component = new Component(type, qualifier);
+            components.put(component, provider);
+            described(component, new GraphSnapshot.Binding(null, null));
         }
     }
 
@@ -53,7 +100,13 @@ public class ContextConfig {
 
     public <Type, Implementation extends Type> void bind(Class<Type> type, Class<Implementation> implementation,
                                                          Annotation... annotations) {
+        bind(List.of(type), implementation, annotations);
+    }
 
+    /**
+     * bind every type to one provider of the implementation, so they share its scoped instances
+     */
+    private void bind(List<Class<?>> types, Class<?> implementation, Annotation... annotations) {
         Map<Class<?>, List<Annotation>> annotationGroups =
             Arrays.stream(annotations).collect(Collectors.groupingBy(this::typeOf, Collectors.toList()));
 
@@ -61,26 +114,118 @@ public class ContextConfig {
             throw new IllegalComponentException();
         }
 
-        bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()),
-            createScopedProvider(implementation, annotationGroups.getOrDefault(Scope.class, List.of())));
-    }
-
-    private <Type> ComponentProvider<?> createScopedProvider(Class<Type> implementation, List<Annotation> scopes) {
+        List<Annotation> scopes = annotationGroups.getOrDefault(Scope.class, List.of());
         if (scopes.size() > 1) {
             throw new IllegalComponentException();
         }
-        ComponentProvider<?> injectionProvider = new InjectionProvider<>(implementation);
+        Optional<Annotation> scope = scopes.stream().findFirst().or(() -> scopeFrom(implementation));
+
+        ComponentProvider<?> provider = createScopedProvider(implementation, scope);
+        for (Class<?> type : types) {
+            bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()), provider,
+                new GraphSnapshot.Binding(implementation, scope.orElse(null)));
+        }
+    }
 
-        return scopes.stream().findFirst().or(() -> scopeFrom(implementation))
-            .<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider)).orElse(injectionProvider);
+    /**
+     * bind the {@link jakarta.inject.Inject} and {@link Singleton} classes of the packages and their sub packages
+     * with the qualifiers and scope they are annotated with, their other annotations are left alone, to themselves and to every interface of the packages
+     * only one of them implements. types already bound are left alone.
+     * locations indexed by the annotation processor are taken from the index instead of being scanned.
+     * if the processor verified the graph and these are all the bindings when {@link #getContext()} is called,
+     * the context is created without validating them again
+     */
+    public void scan(String... packages) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ClasspathScanner.Scan scan = new ClasspathScanner(loader != null ? loader : ContextConfig.class.getClassLoader()).scan(packages);
+        List<Class<?>> found = scan.components();
+        // the verified graph is the whole context only if nothing else is bound
+        boolean whole = scan.verified() != null && components.isEmpty() && parent == null;
+        Set<Class<?>> bound = components.keySet().stream().map(Component::type).collect(Collectors.toSet());
+        Map<Class<?>, List<Class<?>>> implementations = new HashMap<>();
+        for (Class<?> implementation : found) {
+            interfacesOf(implementation).filter(i -> inPackages(i, packages))
+                .forEach(i -> implementations.computeIfAbsent(i, t -> new ArrayList<>()).add(implementation));
+        }
+        for (Class<?> implementation : found) {
+            List<Class<?>> types = Stream.concat(Stream.of(implementation), interfacesOf(implementation)
+                    .filter(i -> implementations.getOrDefault(i, List.of()).size() == 1))
+                .filter(type -> !bound.contains(type)).toList();
+            if (!types.isEmpty()) {
+                bind(types, implementation, Arrays.stream(implementation.getAnnotations())
+                    .filter(a -> typeOf(a) != illegal.class).toArray(Annotation[]::new));
+            }
+            whole = whole && scan.verified().get(implementation.getName())
+                .equals(types.stream().filter(t -> t != implementation).map(Class::getName).collect(Collectors.toSet()));
+        }
+        this.verified = whole ? new HashMap<>(components) : null;
+        this.verifiedOrder = whole ? List.copyOf(components.keySet()) : null;
     }
 
-    private <Type> void bind(Class<Type> type, List<Annotation> qualifiers, ComponentProvider<?> provider) {
+    private static Stream<Class<?>> interfacesOf(Class<?> implementation) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> current = implementation; current != null; current = current.getSuperclass()) {
+            collectInterfaces(current, interfaces);
+        }
+        return interfaces.stream();
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> declared : type.getInterfaces()) {
+            if (interfaces.add(declared)) {
+                collectInterfaces(declared, interfaces);
+            }
+        }
+    }
+
+    private static boolean inPackages(Class<?> type, String... packages) {
+        return Arrays.stream(packages).anyMatch(p -> type.getName().startsWith(p + "."));
+    }
+
+    private <Type> ComponentProvider<?> createScopedProvider(Class<Type> implementation, Optional<Annotation> scope) {
+        ComponentProvider<?> injectionProvider = generatedProvider(implementation).orElseGet(() -> injectionProvider(implementation));
+
+        return scope.<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider)).orElse(injectionProvider);
+    }
+
+    private <Type> ComponentProvider<?> injectionProvider(Class<Type> implementation) {
+        InjectionMetadata<Type> metadata = snapshot == null ? null : snapshot.restore(implementation);
+        if (metadata == null) {
+            metadata = InjectionMetadata.of(implementation);
+        }
+        if (snapshotFile != null) {
+            injected.put(implementation, metadata);
+        }
+        return new InjectionProvider<>(implementation, metadata, instantiation);
+    }
+
+    private <Type> Optional<ComponentProvider<?>> generatedProvider(Class<Type> implementation) {
+        for (ComponentRegistry registry : registries) {
+            ComponentFactory<Type> factory = registry.factory(implementation);
+            if (factory != null) {
+                return Optional.of(new GeneratedProvider<>(factory));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private <Type> void bind(Class<Type> type, List<Annotation> qualifiers, ComponentProvider<?> provider,
+                             GraphSnapshot.Binding binding) {
         if (qualifiers.isEmpty()) {
-            components.put(new Component(type, null), provider);
+            Component component = new Component(type, null);
+            components.put(component, provider);
+            described(component, binding);
         }
         for (Annotation qualifier : qualifiers) {
-            components.put(new Component(type, qualifier), provider);
+            Component component = new Component(type, qualifier);
+            components.put(component, provider);
+            described(component, binding);
+        }
+    }
+
+    private void described(Component component, GraphSnapshot.Binding binding) {
+        if (snapshotFile != null) {
+            bindings.put(component, binding);
         }
     }
 
@@ -93,54 +238,111 @@ public class ContextConfig {
         if (!scopes.containsKey(scope.annotationType())) {
             throw new IllegalComponentException();
         }
-        return scopes.get(scope.annotationType()).create(provider);
+        return scopes.get(scope.annotationType()).create(scope, provider);
     }
 
     public Context getContext() {
-        // check dependencies
-        components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-
-        return new Context() {
-            // Type -> Reference
-
-            @Override
-            public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
-                if (ref.isContainer()) {
-                    if (ref.getContainer() != Provider.class) {
-                        return Optional.empty();
-                    }
-                    return (Optional<ComponentType>) Optional.ofNullable(getProvider(ref))
-                        .map(provider -> (Provider<Object>) () -> provider.get(this));
+        boolean snapshotted = snapshotFile != null && parent == null && bindings.keySet().containsAll(components.keySet());
+        List<Component> order = snapshotted && snapshot != null ? snapshot.order(components, bindings) : null;
+        if (order == null && components.equals(verified)) {
+            order = verifiedOrder;
+        }
+        if (order == null) {
+            order = parent == null ? DependencyGraph.sort(components) : DependencyGraph.sort(components, parent::contains);
+            if (snapshotted) {
+                snapshot = GraphSnapshot.of(order, bindings, injected);
+                try {
+                    snapshot.write(snapshotFile);
+                } catch (IOException e) {
+                    // a snapshot is only a cache, the next start validates again
+                    monitor.snapshotFailed(snapshotFile, e);
                 }
-                return Optional.ofNullable(getProvider(ref)).map(provider -> (ComponentType) provider.get(this));
             }
-        };
-    }
-
-    private <ComponentType> ComponentProvider<?> getProvider(ComponentRef<ComponentType> ref) {
-        return components.get(ref.component());
-    }
+        }
 
-    private void checkDependencies(Component component, Stack<Component> visiting) {
-        for (ComponentRef dependency : components.get(component).getDependencies()) {
-            if (!components.containsKey(dependency.component())) {
-                throw new DependencyNotFoundException(component, dependency.component());
-            }
-            if (!dependency.isContainer()) {
-                if (visiting.contains(dependency.component())) {
-                    throw new CyclicDependenciesFoundException(visiting);
-                }
-                visiting.push(dependency.component());
-                checkDependencies(dependency.component(), visiting);
-                visiting.pop();
-            }
+        ResolutionPlan plan = new ResolutionPlan(components, parent, monitor, concurrentResolution);
+        plan.disposeWith(Disposal.of(components, order, disposal));
+        if (warmUp != null) {
+            new SingletonWarmUp(components, warmUp).warmUp(plan, order);
         }
+        return plan;
     }
 
     public <ScopeType extends Annotation> void scope(Class<ScopeType> scope, ScopeProvider provider) {
         scopes.put(scope, provider);
     }
 
+    /**
+     * choose the engine used by components bound after this call
+     */
+    public void instantiation(Instantiation instantiation) {
+        this.instantiation = instantiation;
+    }
+
+    /**
+     * build all singletons in {@link #getContext()}, independent ones in parallel on the executor
+     */
+    public void eager(Executor executor) {
+        eager(executor, (component, duration) -> {
+        });
+    }
+
+    /**
+     * like {@link #eager(Executor)}, reporting how long each singleton took to build
+     */
+    public void eager(Executor executor, BiConsumer<Component, Duration> listener) {
+        this.warmUp = new SingletonWarmUp.Options(executor, listener);
+    }
+
+    /**
+     * dispose independent instances side by side on the executor when a context is closed, failing with
+     * {@link com.time.tdd.di.container.exceptions.DisposalException} if it takes longer than the timeout.
+     * by default the closing thread disposes them one by one, however long it takes
+     */
+    public void disposal(Executor executor, Duration timeout) {
+        this.disposal = new Disposal.Options(executor, timeout);
+    }
+
+    /**
+     * resolve the constructor dependencies of reflectively injected components side by side on the executor,
+     * e.g. a {@link java.util.concurrent.ForkJoinPool}. the constructing thread takes part, so any executor works
+     */
+    public void concurrent(Executor executor) {
+        this.concurrentResolution = executor;
+    }
+
+    /**
+     * keep the validated graph in the file between runs. while the bound classes are unchanged, components bound after
+     * this call get their inject points from the file instead of scanning them, and {@link #getContext()} skips
+     * validation when the bindings are the snapshotted ones. otherwise the file is rewritten
+     */
+    public void snapshot(Path file) {
+        this.snapshotFile = file;
+        this.snapshot = GraphSnapshot.read(file);
+    }
+
+    /**
+     * instrument the contexts created by this config, e.g. with {@link InMemoryMonitor} or {@link JfrMonitor}
+     */
+    public void monitor(ContainerMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * components bound after this call use the factories of the registry when it has one for them
+     */
+    public void registry(ComponentRegistry registry) {
+        registries.add(registry);
+    }
+
+    /**
+     * {@link #registry(ComponentRegistry)} every registry generated by the annotation processor on the class path,
+     * one per compiled module
+     */
+    public void useGeneratedFactories() {
+        ServiceLoader.load(ComponentRegistry.class).forEach(this::registry);
+    }
+
     @interface illegal {
     }
 
@@ -0,0 +1,15 @@
+package com.time.tdd.di.container;
+
+/**
+ * context a component is built from, resolving the dependencies its provider declares by their index,
+ * e.g. the index in {@link ComponentFactory#dependencies()}, instead of looking their refs up
+ *
+ * @author XuJian
+ * @date 2023-03-26 10:15
+ **/
+public interface Dependencies extends Context {
+    /**
+     * @return the dependency at the index, which is bound
+     */
+    Object resolve(int index);
+}
@@ -0,0 +1,252 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.CyclicDependenciesFoundException;
+import com.time.tdd.di.container.exceptions.DependencyNotFoundException;
+import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * validates the bindings with a single iterative depth first walk, every component is visited once
+ *
+ * @author XuJian
+ * @date 2023-03-16 20:55
+ **/
+class DependencyGraph {
+    private final Map<Component, ComponentProvider<?>> components;
+    private final Predicate<Component> inherited;
+    private final Map<Component, Colour> colours = new HashMap<>();
+    private Map<Class<?>, List<Component>> byType;
+    private final List<Component> order = new ArrayList<>();
+
+    private DependencyGraph(Map<Component, ComponentProvider<?>> components, Predicate<Component> inherited) {
+        this.components = components;
+        this.inherited = inherited;
+    }
+
+    /**
+     * @return all components, every component after the components it directly depends on
+     */
+    static List<Component> sort(Map<Component, ComponentProvider<?>> components) {
+        return sort(components, component -> false);
+    }
+
+    /**
+     * sort the bindings layered over an already validated parent, dependencies on inherited components end the walk
+     * as the parent can't depend back on its children
+     */
+    static List<Component> sort(Map<Component, ComponentProvider<?>> components, Predicate<Component> inherited) {
+        DependencyGraph graph = new DependencyGraph(components, inherited);
+        components.keySet().forEach(graph::visit);
+        return graph.order;
+    }
+
+    /**
+     * group the components of selected providers by depth, a component is one level above the deepest component it
+     * depends on, so components of the same level never depend on each other. a provider bound to several components
+     * is only grouped once
+     *
+     * @param order components sorted by {@link #sort(Map)}
+     * @return levels from the components without dependencies up
+     */
+    static List<List<Component>> levels(Map<Component, ComponentProvider<?>> components, List<Component> order,
+                                        Predicate<ComponentProvider<?>> selected) {
+        Map<Component, Integer> depths = new HashMap<>();
+        // deepest binding per type, for multibindings which depend on all of them
+        Map<Class<?>, Integer> typeDepths = new HashMap<>();
+        Set<ComponentProvider<?>> grouped = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Integer, List<Component>> levels = new TreeMap<>();
+        for (Component component : order) {
+            ComponentProvider<?> provider = components.get(component);
+            int depth = 0;
+            for (ComponentRef<?> dependency : provider.getDependencies()) {
+                // inherited dependencies are already resolvable by the parent
+                if (dependency.isMultibinding() && typeDepths.containsKey(dependency.component().type())) {
+                    depth = Math.max(depth, typeDepths.get(dependency.component().type()) + 1);
+                } else if (!dependency.isContainer() && depths.containsKey(dependency.component())) {
+                    depth = Math.max(depth, depths.get(dependency.component()) + 1);
+                }
+            }
+            depths.put(component, depth);
+            typeDepths.merge(component.type(), depth, Math::max);
+            if (selected.test(provider) && grouped.add(provider)) {
+                levels.computeIfAbsent(depth, d -> new ArrayList<>()).add(component);
+            }
+        }
+        return new ArrayList<>(levels.values());
+    }
+
+    /**
+     * group as {@link #levels}, but dependencies through providers, lazies and deferred multibindings count as well,
+     * since a component may still use them while it is disposed. they can close a cycle, which is cut where the walk
+     * first comes back to a component it is still in
+     *
+     * @param order components sorted by {@link #sort(Map)}
+     * @return levels from the components nothing is used by up
+     */
+    static List<List<Component>> disposalLevels(Map<Component, ComponentProvider<?>> components, List<Component> order,
+                                                Predicate<ComponentProvider<?>> selected) {
+        Map<Class<?>, List<Component>> byType = new HashMap<>();
+        components.keySet().forEach(c -> byType.computeIfAbsent(c.type(), t -> new ArrayList<>()).add(c));
+        Map<Component, List<Component>> uses = new HashMap<>();
+        for (Component component : order) {
+            uses.put(component, uses(components, byType, component));
+        }
+        Map<Component, Integer> depths = new HashMap<>();
+        Set<Component> entered = new HashSet<>();
+        Set<ComponentProvider<?>> grouped = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Integer, List<Component>> levels = new TreeMap<>();
+        Deque<Frame> path = new ArrayDeque<>();
+        for (Component root : order) {
+            if (entered.add(root)) {
+                path.push(new Frame(root, uses.get(root).iterator()));
+            }
+            while (!path.isEmpty()) {
+                Frame frame = path.peek();
+                if (frame.dependencies().hasNext()) {
+                    Component dependency = frame.dependencies().next();
+                    if (entered.add(dependency)) {
+                        path.push(new Frame(dependency, uses.get(dependency).iterator()));
+                    }
+                    continue;
+                }
+                path.pop();
+                int depth = 0;
+                for (Component dependency : uses.get(frame.component())) {
+                    // components still on the path close a cycle and are left out
+                    if (depths.containsKey(dependency)) {
+                        depth = Math.max(depth, depths.get(dependency) + 1);
+                    }
+                }
+                depths.put(frame.component(), depth);
+                ComponentProvider<?> provider = components.get(frame.component());
+                if (selected.test(provider) && grouped.add(provider)) {
+                    levels.computeIfAbsent(depth, d -> new ArrayList<>()).add(frame.component());
+                }
+            }
+        }
+        return new ArrayList<>(levels.values());
+    }
+
+    /**
+     * bound components the component may use, however they are injected. inherited ones are left to the parent
+     */
+    private static List<Component> uses(Map<Component, ComponentProvider<?>> components, Map<Class<?>, List<Component>> byType,
+                                        Component component) {
+        List<Component> uses = new ArrayList<>();
+        for (ComponentRef<?> dependency : components.get(component).getDependencies()) {
+            ComponentRef<?> used = dependency.inner() == null ? dependency : dependency.inner();
+            if (used.isMultibinding()) {
+                uses.addAll(byType.getOrDefault(used.component().type(), List.of()));
+            } else if (components.containsKey(used.component())) {
+                uses.add(used.component());
+            }
+        }
+        return uses;
+    }
+
+    private void visit(Component root) {
+        if (colours.containsKey(root)) {
+            return;
+        }
+        Deque<Frame> path = new ArrayDeque<>();
+        enter(root, path);
+        while (!path.isEmpty()) {
+            Frame frame = path.peek();
+            if (!frame.dependencies().hasNext()) {
+                colours.put(frame.component(), Colour.BLACK);
+                order.add(frame.component());
+                path.pop();
+                continue;
+            }
+            Component dependency = frame.dependencies().next();
+            Colour colour = colours.get(dependency);
+            if (colour == Colour.GREY) {
+                throw new CyclicDependenciesFoundException(cycle(path, dependency));
+            }
+            if (colour == null) {
+                enter(dependency, path);
+            }
+        }
+    }
+
+    private void enter(Component component, Deque<Frame> path) {
+        colours.put(component, Colour.GREY);
+        path.push(new Frame(component, dependencies(component).iterator()));
+    }
+
+    /**
+     * bound components the component is constructed with, a multibinding depends on every binding of its type
+     * and can't be qualified.
+     * dependencies through providers only need to be bound, inherited ones are validated by the parent
+     */
+    private List<Component> dependencies(Component component) {
+        List<Component> dependencies = new ArrayList<>();
+        for (ComponentRef<?> dependency : components.get(component).getDependencies()) {
+            if (dependency.inner() != null) {
+                // only a multibinding may be nested, in a provider or lazy
+                if (!ResolutionPlan.isDeferred(dependency) || dependency.component().qualifier() != null) {
+                    throw new IllegalComponentException();
+                }
+                // a deferred multibinding is always resolvable, its elements are validated when bound
+                continue;
+            }
+            if (dependency.isMultibinding()) {
+                if (dependency.component().qualifier() != null) {
+                    // every binding of the type is an element, a qualifier can't select among them
+                    throw new IllegalComponentException();
+                }
+                dependencies.addAll(byType().getOrDefault(dependency.component().type(), List.of()));
+                continue;
+            }
+            if (!components.containsKey(dependency.component())) {
+                if (inherited.test(dependency.component())) {
+                    continue;
+                }
+                throw new DependencyNotFoundException(component, dependency.component());
+            }
+            if (!dependency.isContainer()) {
+                dependencies.add(dependency.component());
+            }
+        }
+        return dependencies;
+    }
+
+    private Map<Class<?>, List<Component>> byType() {
+        if (byType == null) {
+            byType = new HashMap<>();
+            components.keySet().forEach(c -> byType.computeIfAbsent(c.type(), t -> new ArrayList<>()).add(c));
+        }
+        return byType;
+    }
+
+    private static List<Component> cycle(Deque<Frame> path, Component start) {
+        List<Component> cycle = new ArrayList<>();
+        Iterator<Frame> frames = path.descendingIterator();
+        Component component;
+        do {
+            component = frames.next().component();
+        } while (!component.equals(start));
+        cycle.add(component);
+        frames.forEachRemaining(frame -> cycle.add(frame.component()));
+        return cycle;
+    }
+
+    private enum Colour {
+        GREY, BLACK
+    }
+
+    private record Frame(Component component, Iterator<Component> dependencies) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.DisposalException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * disposes the instances held by the scopes of a plan, level by level from the top: a level is only disposed after
+ * every level above it, which are the ones that may still use it, so all providers of a level are disposed in
+ * parallel. unlike {@link SingletonWarmUp} the levels count dependencies through providers and lazies, an instance
+ * may call them from its close. the levels are taken when the plan is built, later bindings of the config don't leak in
+ *
+ * @author XuJian
+ * @date 2023-03-21 20:40
+ **/
+class Disposal {
+    static final Disposal NONE = new Disposal(List.of(), new Options(Runnable::run, null));
+
+    private final List<List<ComponentProvider<?>>> levels;
+    private final Executor executor;
+    private final Duration timeout;
+
+    private Disposal(List<List<ComponentProvider<?>>> levels, Options options) {
+        this.levels = levels;
+        this.executor = options.executor();
+        this.timeout = options.timeout();
+    }
+
+    /**
+     * @param order components sorted by {@link DependencyGraph#sort(Map)}
+     */
+    static Disposal of(Map<Component, ComponentProvider<?>> components, List<Component> order, Options options) {
+        List<List<ComponentProvider<?>>> levels = new ArrayList<>();
+        for (List<Component> level : DependencyGraph.disposalLevels(components, order, Disposal::holdsInstances)) {
+            levels.add(level.stream().<ComponentProvider<?>>map(components::get).toList());
+        }
+        Collections.reverse(levels);
+        return new Disposal(levels, options);
+    }
+
+    private static boolean holdsInstances(ComponentProvider<?> provider) {
+        return provider instanceof SingletonProvider || provider instanceof PooledProvider
+            || provider instanceof ThreadScopedProvider;
+    }
+
+    void dispose() {
+        long deadline = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+        Collection<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (List<ComponentProvider<?>> level : levels) {
+            CompletableFuture<?>[] disposing = level.stream()
+                .map(provider -> CompletableFuture.runAsync(() -> dispose(provider, failures), executor))
+                .toArray(CompletableFuture<?>[]::new);
+            try {
+                if (timeout == null) {
+                    CompletableFuture.allOf(disposing).get();
+                } else {
+                    CompletableFuture.allOf(disposing).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException e) {
+                throw new DisposalException("instances not disposed within " + timeout, failures);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DisposalException("interrupted while disposing instances", failures);
+            } catch (ExecutionException e) {
+                // errors escaping a provider, its exceptions are already collected
+                failures.add(e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new DisposalException(failures.size() + " instances failed to dispose", failures);
+        }
+    }
+
+    private static void dispose(ComponentProvider<?> provider, Collection<Throwable> failures) {
+        try {
+            provider.dispose();
+        } catch (Exception e) {
+            failures.add(e);
+        }
+    }
+
+    /**
+     * @param timeout for the whole disposal, {@code null} waits forever
+     */
+    record Options(Executor executor, Duration timeout) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author XuJian
+ * @date 2023-03-18 15:34
+ **/
+class GeneratedProvider<T> implements ComponentProvider<T> {
+    private final ComponentFactory<T> factory;
+    private final List<ComponentRef<?>> dependencies;
+
+    GeneratedProvider(ComponentFactory<T> factory) {
+        this.factory = factory;
+        this.dependencies = factory.dependencies();
+    }
+
+    @Override
+    public T get(Context context) {
+        ContainerMonitor monitor = ResolutionPlan.monitorOf(context);
+        Dependencies dependencies = context instanceof ResolutionPlan.Wiring wiring && wiring.wires(this.dependencies)
+            ? wiring : new Unwired(context);
+        if (monitor == ContainerMonitor.NONE) {
+            return factory.create(dependencies);
+        }
+        long start = System.nanoTime();
+        T instance = factory.create(dependencies);
+        monitor.constructed(factory.type(), System.nanoTime() - start);
+        return instance;
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * dependencies resolved by ref, for a context not compiled by a plan
+     */
+    private class Unwired implements Dependencies {
+        private final Context context;
+
+        Unwired(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public Object resolve(int index) {
+            return context.get(dependencies.get(index)).get();
+        }
+
+        @Override
+        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+            return context.get(ref);
+        }
+
+        @Override
+        public <ComponentType> void release(ComponentRef<ComponentType> ref, ComponentType instance) {
+            context.release(ref, instance);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.time.tdd.di.container;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * validated graph of a config kept between runs: the components in dependency order with their implementation
+ * and scope, and the inject points of every reflectively injected implementation. an implementation is only trusted
+ * while the CRC32 of its class files, superclasses included, is unchanged
+ * <pre>
+ * int magic, int version
+ * int classes { utf name, long fingerprint, boolean scanned, utfs constructor parameters,
+ *               int fields { utf declaring class, utf name }, int methods { utf declaring class, utf name, utfs parameters } }
+ * int components { utf key, utf implementation, utf scope }
+ * </pre>
+ *
+ * @author XuJian
+ * @date 2023-03-21 10:20
+ **/
+class GraphSnapshot {
+    private static final int MAGIC = 0x54444447;
+    private static final int VERSION = 2;
+    private static final long UNKNOWN = -1;
+
+    private final Map<String, Members> classes;
+    private final List<Node> graph;
+    private final Map<Class<?>, Long> fingerprints = new ConcurrentHashMap<>();
+
+    private GraphSnapshot(Map<String, Members> classes, List<Node> graph) {
+        this.classes = classes;
+        this.graph = graph;
+    }
+
+    /**
+     * @return the snapshot in the file, {@code null} if there is none or it can't be read
+     */
+    static GraphSnapshot read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            // a snapshot is only a cache, a broken one is rebuilt
+            return null;
+        }
+    }
+
+    private static GraphSnapshot parse(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        Map<String, Members> classes = new HashMap<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            String name = string(buffer);
+            long fingerprint = buffer.getLong();
+            boolean scanned = buffer.get() != 0;
+            List<String> constructor = strings(buffer);
+            List<String[]> fields = new ArrayList<>();
+            for (int j = buffer.getInt(); j > 0; j--) {
+                fields.add(new String[] {string(buffer), string(buffer)});
+            }
+            List<MethodRef> methods = new ArrayList<>();
+            for (int j = buffer.getInt(); j > 0; j--) {
+                methods.add(new MethodRef(string(buffer), string(buffer), strings(buffer)));
+            }
+            classes.put(name, new Members(fingerprint, scanned, constructor, fields, methods));
+        }
+        List<Node> graph = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            graph.add(new Node(string(buffer), string(buffer), string(buffer)));
+        }
+        return new GraphSnapshot(classes, graph);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(ByteBuffer buffer) {
+        List<String> strings = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            strings.add(string(buffer));
+        }
+        return strings;
+    }
+
+    /**
+     * snapshot of bindings already validated in the given order
+     */
+    static GraphSnapshot of(List<Component> order, Map<Component, Binding> bindings, Map<Class<?>, InjectionMetadata<?>> injected) {
+        Map<String, Members> classes = new LinkedHashMap<>();
+        List<Node> graph = new ArrayList<>();
+        GraphSnapshot snapshot = new GraphSnapshot(classes, graph);
+        for (Component component : order) {
+            Binding binding = bindings.get(component);
+            graph.add(new Node(key(component), binding.implementationName(), binding.scopeName()));
+            Class<?> implementation = binding.implementation();
+            if (implementation != null && !classes.containsKey(implementation.getName())) {
+                classes.put(implementation.getName(), Members.of(snapshot.fingerprint(implementation), injected.get(implementation)));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * write to a sibling file first and move it over, so readers never see half a snapshot
+     */
+    void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(classes.size());
+            for (Map.Entry<String, Members> entry : classes.entrySet()) {
+                Members members = entry.getValue();
+                string(out, entry.getKey());
+                out.writeLong(members.fingerprint());
+                out.writeBoolean(members.scanned());
+                strings(out, members.constructor());
+                out.writeInt(members.fields().size());
+                for (String[] field : members.fields()) {
+                    string(out, field[0]);
+                    string(out, field[1]);
+                }
+                out.writeInt(members.methods().size());
+                for (MethodRef method : members.methods()) {
+                    string(out, method.declaring());
+                    string(out, method.name());
+                    strings(out, method.parameters());
+                }
+            }
+            out.writeInt(graph.size());
+            for (Node node : graph) {
+                string(out, node.key());
+                string(out, node.implementation());
+                string(out, node.scope());
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void string(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void strings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            string(out, value);
+        }
+    }
+
+    /**
+     * @return inject points of the implementation without scanning it, {@code null} if unknown or its classes changed
+     */
+    <T> InjectionMetadata<T> restore(Class<T> implementation) {
+        InjectionMetadata<T> cached = InjectionMetadata.cached(implementation);
+        if (cached != null) {
+            return cached;
+        }
+        Members members = classes.get(implementation.getName());
+        if (members == null || !members.scanned() || !current(implementation)) {
+            return null;
+        }
+        try {
+            ClassLoader loader = implementation.getClassLoader();
+            Constructor<T> constructor = implementation.getDeclaredConstructor(types(members.constructor(), loader));
+            List<Field> fields = new ArrayList<>();
+            for (String[] field : members.fields()) {
+                fields.add(Class.forName(field[0], false, loader).getDeclaredField(field[1]));
+            }
+            List<Method> methods = new ArrayList<>();
+            for (MethodRef method : members.methods()) {
+                methods.add(Class.forName(method.declaring(), false, loader)
+                    .getDeclaredMethod(method.name(), types(method.parameters(), loader)));
+            }
+            return InjectionMetadata.restore(constructor, fields, methods);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Class<?>[] types(List<String> names, ClassLoader loader) throws ClassNotFoundException {
+        Class<?>[] types = new Class<?>[names.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = Class.forName(names.get(i), false, loader);
+        }
+        return types;
+    }
+
+    /**
+     * @return the components in dependency order if the bindings are the ones snapshotted, {@code null} otherwise
+     */
+    List<Component> order(Map<Component, ComponentProvider<?>> components, Map<Component, Binding> bindings) {
+        if (graph.size() != components.size()) {
+            return null;
+        }
+        Map<String, Component> keys = new HashMap<>();
+        for (Component component : components.keySet()) {
+            keys.put(key(component), component);
+        }
+        List<Component> order = new ArrayList<>(graph.size());
+        for (Node node : graph) {
+            Component component = keys.get(node.key());
+            Binding binding = component == null ? null : bindings.get(component);
+            if (binding == null || !node.implementation().equals(binding.implementationName())
+                || !node.scope().equals(binding.scopeName())
+                || binding.implementation() != null && !current(binding.implementation())) {
+                return null;
+            }
+            order.add(component);
+        }
+        return order;
+    }
+
+    private boolean current(Class<?> implementation) {
+        Members members = classes.get(implementation.getName());
+        return members != null && members.fingerprint() != UNKNOWN && members.fingerprint() == fingerprint(implementation);
+    }
+
+    private long fingerprint(Class<?> type) {
+        return fingerprints.computeIfAbsent(type, GraphSnapshot::crc);
+    }
+
+    private static long crc(Class<?> type) {
+        CRC32 crc = new CRC32();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            String resource = current.getName().replace('.', '/') + ".class";
+            ClassLoader loader = current.getClassLoader();
+            try (InputStream in = loader == null ? ClassLoader.getSystemResourceAsStream(resource) : loader.getResourceAsStream(resource)) {
+                if (in == null) {
+                    return UNKNOWN;
+                }
+                crc.update(in.readAllBytes());
+            } catch (IOException e) {
+                return UNKNOWN;
+            }
+        }
+        return crc.getValue();
+    }
+
+    static String key(Component component) {
+        return component.qualifier() == null ? component.type().getName() : component.type().getName() + " " + describe(component.qualifier());
+    }
+
+    /**
+     * annotation type and member values by member name. Annotation.toString differs between jdk versions and
+     * between literals and the annotations read from classes, so it can't identify a binding across runs
+     */
+    static String describe(Annotation annotation) {
+        Class<? extends Annotation> type = annotation.annotationType();
+        StringJoiner members = new StringJoiner(", ", "@" + type.getName() + "(", ")");
+        Method[] methods = type.getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        for (Method method : methods) {
+            if (method.getParameterCount() != 0 || method.isSynthetic()) {
+                continue;
+            }
+            try {
+                method.trySetAccessible();
+                members.add(method.getName() + "=" + value(method.invoke(annotation)));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // members that can't be read leave the snapshot unmatched, it is then rebuilt
+                return annotation.toString();
+            }
+        }
+        return members.toString();
+    }
+
+    private static String value(Object value) {
+        if (value instanceof Annotation annotation) {
+            return describe(annotation);
+        }
+        if (value instanceof Class<?> type) {
+            return type.getName();
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        if (value instanceof String string) {
+            return '"' + string + '"';
+        }
+        if (value instanceof Object[] values) {
+            StringJoiner elements = new StringJoiner(", ", "{", "}");
+            for (Object element : values) {
+                elements.add(value(element));
+            }
+            return elements.toString();
+        }
+        if (value.getClass().isArray()) {
+            String elements = Arrays.deepToString(new Object[] {value});
+            return "{" + elements.substring(2, elements.length() - 2) + "}";
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * how a component was bound, {@code null} implementation for instances
+     */
+    record Binding(Class<?> implementation, Annotation scope) {
+        String implementationName() {
+            return implementation == null ? "" : implementation.getName();
+        }
+
+        String scopeName() {
+            return scope == null ? "" : describe(scope);
+        }
+    }
+
+    private record Node(String key, String implementation, String scope) {
+    }
+
+    private record MethodRef(String declaring, String name, List<String> parameters) {
+    }
+
+    private record Members(long fingerprint, boolean scanned, List<String> constructor, List<String[]> fields,
+                           List<MethodRef> methods) {
+        static Members of(long fingerprint, InjectionMetadata<?> metadata) {
+            if (metadata == null) {
+                return new Members(fingerprint, false, List.of(), List.of(), List.of());
+            }
+            return new Members(fingerprint, true, names(metadata.constructor().element().getParameterTypes()),
+                metadata.fields().stream().map(f -> new String[] {declaring(f.element()), f.element().getName()}).toList(),
+                metadata.methods().stream().map(m -> new MethodRef(declaring(m.element()), m.element().getName(),
+                    names(m.element().getParameterTypes()))).toList());
+        }
+
+        private static String declaring(Member member) {
+            return member.getDeclaringClass().getName();
+        }
+
+        private static List<String> names(Class<?>[] types) {
+            return Arrays.stream(types).map(Class::getName).toList();
+        }
+    }
+}
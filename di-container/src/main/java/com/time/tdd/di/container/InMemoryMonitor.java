@@ -0,0 +1,143 @@
+package com.time.tdd.di.container;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * collects into counters and power of two latency histograms, meant to be read by a metrics exporter or a test
+ *
+ * @author XuJian
+ * @date 2023-03-20 14:40
+ **/
+public class InMemoryMonitor implements ContainerMonitor {
+    private final Map<Component, LongAdder> resolutions = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Histogram> constructions = new ConcurrentHashMap<>();
+    private final LongAdder[] hits = adders();
+    private final LongAdder[] misses = adders();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final Queue<IOException> snapshotFailures = new ConcurrentLinkedQueue<>();
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Scope.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void resolved(Component component, int depth) {
+        resolutions.computeIfAbsent(component, c -> new LongAdder()).increment();
+        if (depth > maxDepth.get()) {
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    @Override
+    public void constructed(Class<?> implementation, long nanos) {
+        constructions.computeIfAbsent(implementation, c -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void scoped(Scope scope, boolean hit) {
+        (hit ? hits : misses)[scope.ordinal()].increment();
+    }
+
+    @Override
+    public void snapshotFailed(Path file, IOException cause) {
+        snapshotFailures.add(cause);
+    }
+
+    public long resolutions(Component component) {
+        LongAdder count = resolutions.get(component);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return histogram of the construction latency, empty if never constructed
+     */
+    public Histogram constructions(Class<?> implementation) {
+        return constructions.getOrDefault(implementation, new Histogram());
+    }
+
+    public long hits(Scope scope) {
+        return hits[scope.ordinal()].sum();
+    }
+
+    public long misses(Scope scope) {
+        return misses[scope.ordinal()].sum();
+    }
+
+    /**
+     * @return hits of all lookups of the scope, 0 if never looked up
+     */
+    public double hitRate(Scope scope) {
+        long hit = hits(scope);
+        long total = hit + misses(scope);
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * @return deepest dependency resolved, 0 if only components retrieved from the context were resolved
+     */
+    public int maxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return why snapshots couldn't be written, oldest first
+     */
+    public List<IOException> snapshotFailures() {
+        return List.copyOf(snapshotFailures);
+    }
+
+    /**
+     * bucket i counts latencies below 2^i nanoseconds and not below 2^(i-1)
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            total.add(value);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public Duration mean() {
+            long n = count();
+            return n == 0 ? Duration.ZERO : Duration.ofNanos(total.sum() / n);
+        }
+
+        /**
+         * @return upper bound of the bucket holding the percentile, e.g. 0.99
+         */
+        public Duration percentile(double percentile) {
+            long n = count();
+            long rank = (long) Math.ceil(percentile * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Duration.ofNanos(i >= 63 ? Long.MAX_VALUE : 1L << i);
+                }
+            }
+            return Duration.ZERO;
+        }
+    }
+}
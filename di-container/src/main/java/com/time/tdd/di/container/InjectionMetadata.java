@@ -0,0 +1,223 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.InjectionProvider.Injectable;
+import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+import jakarta.inject.Inject;
+import static java.util.Arrays.stream;
+import static java.util.stream.Stream.concat;
+
+/**
+ * inject points of a component class, scanned once per class and shared by every provider of it.
+ * held in a {@link ClassValue} so the cache goes away with the class loader of the component. the slot stays empty
+ * for illegal components, so they fail again on every bind
+ *
+ * @author XuJian
+ * @date 2023-03-17 21:03
+ **/
+class InjectionMetadata<T> {
+    private static final ClassValue<AtomicReference<InjectionMetadata<?>>> CACHE = new ClassValue<>() {
+        @Override
+        protected AtomicReference<InjectionMetadata<?>> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+
+    private final Injectable<Constructor<T>> constructor;
+    private final List<Injectable<Method>> methods;
+    private final List<Injectable<Field>> fields;
+    private final List<Injectable<?>> members;
+    private final List<ComponentRef<?>> dependencies;
+    private final AtomicReferenceArray<Injectors> injectors = new AtomicReferenceArray<>(Instantiation.values().length);
+
+    private InjectionMetadata(Injectable<Constructor<T>> constructor, List<Injectable<Method>> methods,
+                              List<Injectable<Field>> fields) {
+        this.constructor = constructor;
+        this.methods = methods;
+        this.fields = fields;
+        this.members = members(constructor.element().getDeclaringClass(), fields, methods);
+        this.dependencies = concat(Stream.of(constructor), members.stream()).flatMap(i -> stream(i.required())).toList();
+    }
+
+    /**
+     * order of injection the spec requires: superclasses first, and the fields of a class before its methods
+     */
+    private static List<Injectable<?>> members(Class<?> component, List<Injectable<Field>> fields,
+                                               List<Injectable<Method>> methods) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = component; current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+        List<Injectable<?>> members = new ArrayList<>(fields.size() + methods.size());
+        for (Class<?> declaring : hierarchy) {
+            fields.stream().filter(f -> f.element().getDeclaringClass() == declaring).forEach(members::add);
+            methods.stream().filter(m -> m.element().getDeclaringClass() == declaring).forEach(members::add);
+        }
+        return List.copyOf(members);
+    }
+
+    private static <T> InjectionMetadata<T> scan(Class<T> component) {
+        if (Modifier.isAbstract(component.getModifiers())) {
+            throw new IllegalComponentException();
+        }
+
+        Injectable<Constructor<T>> constructor = getInjectConstructor(component);
+        List<Injectable<Method>> methods = getInjectMethods(component);
+        List<Injectable<Field>> fields = getInjectFields(component);
+
+        if (fields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
+            throw new IllegalComponentException();
+        }
+        if (methods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0)) {
+            throw new IllegalComponentException();
+        }
+        return new InjectionMetadata<>(constructor, methods, fields);
+    }
+
+    static <T> InjectionMetadata<T> of(Class<T> component) {
+        AtomicReference<InjectionMetadata<?>> cached = CACHE.get(component);
+        if (cached.get() == null) {
+            cached.compareAndSet(null, scan(component));
+        }
+        return (InjectionMetadata<T>) cached.get();
+    }
+
+    /**
+     * @return inject points of the component if already scanned or restored, {@code null} otherwise
+     */
+    static <T> InjectionMetadata<T> cached(Class<T> component) {
+        return (InjectionMetadata<T>) CACHE.get(component).get();
+    }
+
+    /**
+     * inject points already known to be valid, e.g. read back from a {@link GraphSnapshot}, taken as they are without
+     * scanning. kept in the cache, so the component is scanned neither later nor by other contexts
+     */
+    static <T> InjectionMetadata<T> restore(Constructor<T> constructor, List<Field> fields, List<Method> methods) {
+        AtomicReference<InjectionMetadata<?>> cached = CACHE.get(constructor.getDeclaringClass());
+        cached.compareAndSet(null, new InjectionMetadata<>(Injectable.of(constructor), methods.stream().map(Injectable::of).toList(),
+            fields.stream().map(Injectable::of).toList()));
+        return (InjectionMetadata<T>) cached.get();
+    }
+
+    Injectable<Constructor<T>> constructor() {
+        return constructor;
+    }
+
+    List<Injectable<Method>> methods() {
+        return methods;
+    }
+
+    List<Injectable<Field>> fields() {
+        return fields;
+    }
+
+    /**
+     * inject fields and methods in the order they are injected
+     */
+    List<Injectable<?>> members() {
+        return members;
+    }
+
+    List<ComponentRef<?>> dependencies() {
+        return dependencies;
+    }
+
+    /**
+     * injectors are built on first use per engine, racing threads may build them twice but publish one
+     */
+    Injectors injectors(Instantiation instantiation) {
+        Injectors built = injectors.get(instantiation.ordinal());
+        if (built == null) {
+            injectors.compareAndSet(instantiation.ordinal(), null, new Injectors(instantiation.injector(constructor.element()),
+                members.stream().map(m -> instantiation.injector(m.element())).toArray(Injector[]::new)));
+            built = injectors.get(instantiation.ordinal());
+        }
+        return built;
+    }
+
+    private static <Type> Constructor<Type> defaultConstructor(Class<Type> implementation) {
+        try {
+            return implementation.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static <E extends AnnotatedElement> Stream<E> injectable(E[] declared) {
+        return stream(declared).filter(f -> f.isAnnotationPresent(Inject.class));
+    }
+
+    /**
+     * static members are never injected, the container doesn't support static injection
+     */
+    private static boolean isInstanceMember(Member member) {
+        return !Modifier.isStatic(member.getModifiers());
+    }
+
+    private static List<Injectable<Field>> getInjectFields(Class<?> component) {
+        List<Injectable<Field>> injectFields = new ArrayList<>();
+        for (Class<?> current = component; current != Object.class; current = current.getSuperclass()) {
+            injectFields.addAll(0, injectable(current.getDeclaredFields()).filter(InjectionMetadata::isInstanceMember)
+                .map(Injectable::of).toList());
+        }
+        return List.copyOf(injectFields);
+    }
+
+    /**
+     * superclass first. a method is not injected if a subclass overrides it, which a private method never is and a
+     * package private one only from its own package. the overriding method is injected instead, if it is annotated
+     */
+    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
+        List<Method> overriding = new ArrayList<>();
+        List<List<Method>> declared = new ArrayList<>();
+        for (Class<?> current = component; current != Object.class; current = current.getSuperclass()) {
+            List<Method> methods = stream(current.getDeclaredMethods()).filter(InjectionMetadata::isInstanceMember)
+                .filter(m -> !m.isSynthetic()).toList();
+            declared.add(0, methods.stream().filter(m -> m.isAnnotationPresent(Inject.class))
+                .filter(m -> overriding.stream().noneMatch(o -> overrides(o, m))).toList());
+            methods.stream().filter(m -> !Modifier.isPrivate(m.getModifiers())).forEach(overriding::add);
+        }
+        return declared.stream().flatMap(List::stream).map(Injectable::of).toList();
+    }
+
+    private static boolean overrides(Method method, Method overridden) {
+        int modifiers = overridden.getModifiers();
+        if (Modifier.isPrivate(modifiers) || !method.getName().equals(overridden.getName())
+            || !Arrays.equals(method.getParameterTypes(), overridden.getParameterTypes())) {
+            return false;
+        }
+        return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers) || samePackage(method.getDeclaringClass(),
+            overridden.getDeclaringClass());
+    }
+
+    private static boolean samePackage(Class<?> type, Class<?> another) {
+        return type.getClassLoader() == another.getClassLoader() && type.getPackageName().equals(another.getPackageName());
+    }
+
+    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component) {
+        List<Constructor<?>> injectConstructors = injectable(component.getDeclaredConstructors()).toList();
+        if (injectConstructors.size() > 1) {
+            throw new IllegalComponentException();
+        }
+
+        return Injectable.of((Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> defaultConstructor(component)));
+    }
+
+    /**
+     * @param members injectors of {@link #members()}
+     */
+    record Injectors(Injector constructor, Injector[] members) {
+    }
+}
@@ -7,21 +7,10 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.BiFunction;
-import java.util.stream.Stream;
-import jakarta.inject.Inject;
 import jakarta.inject.Qualifier;
 import static java.util.Arrays.stream;
-import static java.util.stream.Stream.concat;
 
 /**
  * @author XuJian
@@ -29,109 +18,71 @@ import static java.util.stream.Stream.concat;
  **/
 class InjectionProvider<T> implements ComponentProvider<T> {
 
+    private final Class<T> component;
     private final Injectable<Constructor<T>> injectConstructor;
-    private final List<Injectable<Method>> injectMethods;
-    private final List<Injectable<Field>> injectFields;
+    private final Injectable<?>[] injectMembers;
+    private final Injector constructorInjector;
+    private final Injector[] memberInjectors;
+    // index of the first dependency of every member in dependencies
+    private final int[] memberOffsets;
+    private final List<ComponentRef<?>> dependencies;
 
     public InjectionProvider(Class<T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) {
-            throw new IllegalComponentException();
-        }
-
-
-        this.injectConstructor = getInjectConstructor(component);
-        this.injectMethods = getInjectMethods(component);
-        this.injectFields = getInjectFields(component);
-
-
-        if (injectFields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
-            throw new IllegalComponentException();
-        }
-        if (injectMethods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0)) {
-            throw new IllegalComponentException();
-        }
+        this(component, Instantiation.METHOD_HANDLE);
     }
 
-
-    private static <T> boolean isOverrideByNoInjectMethod(Class<T> component, Method m) {
-        return stream(component.getDeclaredMethods()).filter(cm -> !cm.isAnnotationPresent(Inject.class))
-            .noneMatch(o -> isOverride(m, o));
+    public InjectionProvider(Class<T> component, Instantiation instantiation) {
+        this(component, InjectionMetadata.of(component), instantiation);
     }
 
-    private static boolean isOverrideByInjectMethod(List<Method> injectMethods, Method m) {
-        return injectMethods.stream().noneMatch(o -> isOverride(m, o));
-    }
-
-    private static boolean isOverride(Method m, Method o) {
-        return o.getName().equals(m.getName()) &&
-            Arrays.equals(o.getParameterTypes(), m.getParameterTypes());
-    }
-
-    private static <T> List<T> traverse(Class<?> component, BiFunction<List<T>, Class<?>, List<T>> finder) {
-        List<T> members = new ArrayList<>();
-        Class<?> current = component;
-        while (current != Object.class) {
-            members.addAll(finder.apply(members, current));
-            current = current.getSuperclass();
+    InjectionProvider(Class<T> component, InjectionMetadata<T> metadata, Instantiation instantiation) {
+        this.component = component;
+        this.injectConstructor = metadata.constructor();
+        this.injectMembers = metadata.members().toArray(Injectable<?>[]::new);
+        this.dependencies = metadata.dependencies();
+        this.memberOffsets = new int[injectMembers.length];
+        int offset = injectConstructor.required().length;
+        for (int i = 0; i < injectMembers.length; i++) {
+            memberOffsets[i] = offset;
+            offset += injectMembers[i].required().length;
         }
-        return members;
-    }
 
-    private static <Type> Constructor<Type> defaultConstructor(Class<Type> implementation) {
-        try {
-            return implementation.getDeclaredConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new IllegalComponentException();
-        }
+        InjectionMetadata.Injectors injectors = metadata.injectors(instantiation);
+        this.constructorInjector = injectors.constructor();
+        this.memberInjectors = injectors.members();
     }
 
-    private static <T extends AnnotatedElement> Stream<T> injectable(T[] declaredFields) {
-        return stream(declaredFields).filter(f -> f.isAnnotationPresent(Inject.class));
-    }
-
-    private static List<Injectable<Field>> getInjectFields(Class<?> component) {
-        List<Field> injectFields = traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList());
-        return injectFields.stream().map(Injectable::of).toList();
-    }
-
-    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
-        List<Method> injectMethods = traverse(component, (methods, current) -> injectable(current.getDeclaredMethods())
-            .filter(m -> isOverrideByInjectMethod(methods, m))
-            .filter(m -> isOverrideByNoInjectMethod(component, m))
-            .toList());
-        Collections.reverse(injectMethods);
-        return injectMethods.stream().map(Injectable::of).toList();
-    }
-
-    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component) {
-        List<Constructor<?>> injectConstructors = injectable(component.getConstructors()).toList();
-        if (injectConstructors.size() > 1) {
-            throw new IllegalComponentException();
+    @Override
+    public T get(Context context) {
+        ContainerMonitor monitor = ResolutionPlan.monitorOf(context);
+        if (monitor == ContainerMonitor.NONE) {
+            return inject(context);
         }
-
-        return Injectable.of((Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> defaultConstructor(component)));
+        long start = System.nanoTime();
+        T instance = inject(context);
+        monitor.constructed(component, System.nanoTime() - start);
+        return instance;
     }
 
-    @Override
-    public T get(Context context) {
+    private T inject(Context context) {
+        ResolutionPlan.Wiring wiring =
+            context instanceof ResolutionPlan.Wiring wired && wired.wires(dependencies) ? wired : null;
         try {
-            T instance = injectConstructor.element().newInstance(injectConstructor.toDependencies(context));
-            for (Injectable<Field> field : injectFields) {
-                field.element().set(instance, field.toDependencies(context)[0]);
-            }
-            for (Injectable<Method> method : injectMethods) {
-                method.element().invoke(instance, method.toDependencies(context));
+            T instance = (T) constructorInjector.inject(null, injectConstructor.toDependencies(context, wiring, 0, true));
+            for (int i = 0; i < memberInjectors.length; i++) {
+                memberInjectors[i].inject(instance, injectMembers[i].toDependencies(context, wiring, memberOffsets[i], false));
             }
             return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
     public List<ComponentRef<?>> getDependencies() {
-        return concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
-            .flatMap(i -> stream(i.required())).toList();
+        return dependencies;
     }
 
     record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required) {
@@ -162,8 +113,26 @@ class InjectionProvider<T> implements ComponentProvider<T> {
             return ComponentRef.of(parameter.getParameterizedType(), getQualifier(parameter));
         }
 
-        Object[] toDependencies(Context context) {
-            return stream(required).map(context::get).map(Optional::get).toArray();
+        /**
+         * @param wiring dependencies of the provider compiled by the plan, {@code null} to look the refs up in the context
+         * @param from   index of the first required ref in the dependencies of the provider
+         * @param concurrently resolve side by side if the plan is configured to
+         */
+        Object[] toDependencies(Context context, ResolutionPlan.Wiring wiring, int from, boolean concurrently) {
+            if (concurrently && wiring != null && wiring.executor() != null) {
+                return ConcurrentResolution.resolve(wiring, from, required, wiring.executor());
+            }
+            Object[] dependencies = new Object[required.length];
+            if (wiring != null) {
+                for (int i = 0; i < required.length; i++) {
+                    dependencies[i] = wiring.resolve(from + i);
+                }
+            } else {
+                for (int i = 0; i < required.length; i++) {
+                    dependencies[i] = context.get(required[i]).get();
+                }
+            }
+            return dependencies;
         }
     }
 }
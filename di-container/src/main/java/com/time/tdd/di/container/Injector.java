@@ -0,0 +1,13 @@
+package com.time.tdd.di.container;
+
+/**
+ * @author XuJian
+ * @date 2023-03-12 10:05
+ **/
+@FunctionalInterface
+interface Injector {
+    /**
+     * invoke the inject point, constructors ignore instance and return the new component
+     */
+    Object inject(Object instance, Object[] dependencies) throws Throwable;
+}
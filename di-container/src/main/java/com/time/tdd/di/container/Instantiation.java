@@ -0,0 +1,92 @@
+package com.time.tdd.di.container;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+/**
+ * engines used by {@link InjectionProvider} to call inject constructors, fields and methods
+ *
+ * @author XuJian
+ * @date 2023-03-12 10:05
+ **/
+public enum Instantiation {
+    /**
+     * plain java.lang.reflect calls, exceptions thrown by the inject point are unwrapped so they surface as they do
+     * from {@link #METHOD_HANDLE}. inject points needn't be public, they are made accessible where the module allows
+     */
+    REFLECTION {
+        @Override
+        Injector injector(AccessibleObject element) {
+            element.trySetAccessible();
+            if (element instanceof Constructor<?> constructor) {
+                return (instance, dependencies) -> {
+                    try {
+                        return constructor.newInstance(dependencies);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                };
+            }
+            if (element instanceof Field field) {
+                return (instance, dependencies) -> {
+                    field.set(instance, dependencies[0]);
+                    return null;
+                };
+            }
+            Method method = (Method) element;
+            return (instance, dependencies) -> {
+                try {
+                    return method.invoke(instance, dependencies);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+        }
+    },
+    /**
+     * method handles spread and adapted once per inject point, falls back to {@link #REFLECTION} if no lookup is granted
+     */
+    METHOD_HANDLE {
+        private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+        private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+        private static final MethodType METHOD = MethodType.methodType(void.class, Object.class, Object[].class);
+
+        @Override
+        Injector injector(AccessibleObject element) {
+            try {
+                MethodHandles.Lookup lookup =
+                    MethodHandles.privateLookupIn(((Member) element).getDeclaringClass(), MethodHandles.lookup());
+                if (element instanceof Constructor<?> constructor) {
+                    MethodHandle handle = lookup.unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, constructor.getParameterCount()).asType(CONSTRUCTOR);
+                    return (instance, dependencies) -> (Object) handle.invokeExact(dependencies);
+                }
+                if (element instanceof Field field) {
+                    MethodHandle handle = lookup.unreflectSetter(field).asType(SETTER);
+                    return (instance, dependencies) -> {
+                        handle.invokeExact(instance, dependencies[0]);
+                        return null;
+                    };
+                }
+                Method method = (Method) element;
+                MethodHandle handle = lookup.unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount()).asType(METHOD);
+                return (instance, dependencies) -> {
+                    handle.invokeExact(instance, dependencies);
+                    return null;
+                };
+            } catch (IllegalAccessException e) {
+                return REFLECTION.injector(element);
+            }
+        }
+    };
+
+    abstract Injector injector(AccessibleObject element);
+}
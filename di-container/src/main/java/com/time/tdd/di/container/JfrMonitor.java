@@ -0,0 +1,119 @@
+package com.time.tdd.di.container;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * reports to java flight recorder. constructions are recorded by default, resolutions and scope lookups
+ * happen on every get and have to be enabled in the recording settings
+ *
+ * @author XuJian
+ * @date 2023-03-20 15:10
+ **/
+public class JfrMonitor implements ContainerMonitor {
+
+    @Override
+    public void resolved(Component component, int depth) {
+        ResolutionEvent event = new ResolutionEvent();
+        if (event.shouldCommit()) {
+            event.component = component.type();
+            event.qualifier = component.qualifier() == null ? null : component.qualifier().toString();
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void constructed(Class<?> implementation, long nanos) {
+        ConstructionEvent event = new ConstructionEvent();
+        if (event.shouldCommit()) {
+            event.implementation = implementation;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void scoped(Scope scope, boolean hit) {
+        ScopeEvent event = new ScopeEvent();
+        if (event.shouldCommit()) {
+            event.scope = scope.name();
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void snapshotFailed(Path file, IOException cause) {
+        SnapshotFailureEvent event = new SnapshotFailureEvent();
+        if (event.shouldCommit()) {
+            event.file = file.toString();
+            event.cause = cause.toString();
+            event.commit();
+        }
+    }
+
+    @Name("com.time.tdd.di.Resolution")
+    @Label("Component Resolution")
+    @Category({"DI Container"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class ResolutionEvent extends Event {
+        @Label("Component")
+        Class<?> component;
+
+        @Label("Qualifier")
+        String qualifier;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    @Name("com.time.tdd.di.Construction")
+    @Label("Component Construction")
+    @Description("construction and injection of a component, including resolving its dependencies")
+    @Category({"DI Container"})
+    @StackTrace(false)
+    static class ConstructionEvent extends Event {
+        @Label("Implementation")
+        Class<?> implementation;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name("com.time.tdd.di.Scope")
+    @Label("Scope Lookup")
+    @Category({"DI Container"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class ScopeEvent extends Event {
+        @Label("Scope")
+        String scope;
+
+        @Label("Hit")
+        boolean hit;
+    }
+
+    @Name("com.time.tdd.di.SnapshotFailure")
+    @Label("Snapshot Failure")
+    @Description("the graph snapshot couldn't be written, the next start validates the bindings again")
+    @Category({"DI Container"})
+    @StackTrace(false)
+    static class SnapshotFailureEvent extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Cause")
+        String cause;
+    }
+}
@@ -0,0 +1,12 @@
+package com.time.tdd.di.container;
+
+/**
+ * container type like {@link jakarta.inject.Provider}, the component is only resolved on the first {@link #get()}
+ * and the same instance is returned afterwards. being deferred, it is allowed to close a dependency cycle
+ *
+ * @author XuJian
+ * @date 2023-03-20 09:30
+ **/
+public interface Lazy<T> {
+    T get();
+}
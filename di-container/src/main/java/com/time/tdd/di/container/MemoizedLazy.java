@@ -0,0 +1,33 @@
+package com.time.tdd.di.container;
+
+import jakarta.inject.Provider;
+
+/**
+ * resolves once under its own lock, readers only pay a volatile read afterwards
+ *
+ * @author XuJian
+ * @date 2023-03-20 09:34
+ **/
+class MemoizedLazy<T> implements Lazy<T> {
+    private Provider<T> provider;
+    private T value;
+    private volatile boolean resolved;
+
+    MemoizedLazy(Provider<T> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public T get() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    value = provider.get();
+                    provider = null;
+                    resolved = true;
+                }
+            }
+        }
+        return value;
+    }
+}
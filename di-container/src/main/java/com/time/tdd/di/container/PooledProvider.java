@@ -1,33 +1,179 @@
 package com.time.tdd.di.container;
 
-import java.util.ArrayList;
+import com.time.tdd.di.container.exceptions.PoolExhaustedException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * borrow / return pool, instances handed out by {@link #get(Context)} come back through {@link #release(Object)}.
+ * only instances the pool lent and that aren't back yet are taken back, so a permit is never released twice.
+ * an instance injected into a dependent stays borrowed by the dependent: it is given back when the dependent is released
+ * through {@link Context#release}, unless the scope of the dependent takes the dependent back, when the dependent is
+ * garbage collected, or when the context is closed. dependents holding every instance exhaust the pool
+ * <p>
+ * when exhausted a borrower waits for at most timeout, {@code null} waits forever and {@link Duration#ZERO} fails fast.
+ * once disposed, instances still borrowed are closed when they come back
+ *
  * @author XuJian
  * @date 2023-03-06 21:21
  **/
 class PooledProvider<T> implements ComponentProvider<T> {
-    static int MAX = 2;
-    private final List<T> pool = new ArrayList<>();
+    static final int DEFAULT_SIZE = 2;
+
     private final ComponentProvider<T> provider;
-    int current;
+    private final int size;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final Set<Lent> lent = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger created = new AtomicInteger();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private volatile boolean disposed;
 
     public PooledProvider(ComponentProvider<T> provider) {
+        this(provider, DEFAULT_SIZE, Duration.ZERO);
+    }
+
+    public PooledProvider(ComponentProvider<T> provider, int size, Duration timeout) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("pool size must be positive");
+        }
         this.provider = provider;
+        this.size = size;
+        this.timeout = timeout;
+        this.permits = new Semaphore(size);
     }
 
     @Override
     public T get(Context context) {
-        if (pool.size() < MAX) {
-            pool.add(provider.get(context));
+        if (disposed) {
+            throw new IllegalStateException("context closed");
+        }
+        acquire();
+        try {
+            T instance = idle.poll();
+            ContainerMonitor monitor = ResolutionPlan.monitorOf(context);
+            if (monitor != ContainerMonitor.NONE) {
+                monitor.scoped(ContainerMonitor.Scope.POOLED, instance != null);
+            }
+            if (instance == null) {
+                instance = provider.get(context);
+                created.incrementAndGet();
+            }
+            lent.add(new Lent(instance));
+            borrowed.increment();
+            return instance;
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(T instance) {
+        if (!lent.remove(new Lent(instance))) {
+            throw new IllegalArgumentException("instance not lent by the pool or already released");
+        }
+        idle.offer(instance);
+        returned.increment();
+        permits.release();
+        // offered before reading the flag, so either this or dispose() sees the instance
+        if (disposed) {
+            try {
+                closeIdle();
+            } catch (Exception e) {
+                throw new IllegalStateException("can't close released instance", e);
+            }
         }
-        return pool.get(current++ % MAX);
+    }
+
+    @Override
+    public boolean lends() {
+        return true;
+    }
+
+    @Override
+    public void dispose() throws Exception {
+        disposed = true;
+        closeIdle();
+    }
+
+    private void closeIdle() throws Exception {
+        Exception failure = null;
+        for (T instance = idle.poll(); instance != null; instance = idle.poll()) {
+            if (instance instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        try {
+            if (timeout == null) {
+                permits.acquire();
+                return;
+            }
+            if (!timeout.isZero() && permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exhausted.increment();
+        throw new PoolExhaustedException(size, timeout);
+    }
+
+    Statistics statistics() {
+        return new Statistics(size, created.get(), idle.size(), borrowed.sum(), returned.sum(), exhausted.sum());
     }
 
     @Override
     public List<ComponentRef<?>> getDependencies() {
         return provider.getDependencies();
     }
-}
 
+    /**
+     * pooled instance compared by identity, components may define equals
+     */
+    private record Lent(Object instance) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Lent that && instance == that.instance;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(instance);
+        }
+    }
+
+    record Statistics(int size, int created, int idle, long borrowed, long returned, long exhausted) {
+        int inUse() {
+            return created - idle;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.time.tdd.di.container;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * qualifiers interned once when a component is created, equal qualifiers share one instance and one compact id,
+ * so components are compared by ids and never call into {@link Annotation#equals(Object)} or
+ * {@link Annotation#hashCode()} after they are created. the tables are held through a {@link ClassValue}
+ * of the annotation type, so they go away with its class loader
+ *
+ * @author XuJian
+ * @date 2023-03-19 19:40
+ **/
+class Qualifiers {
+    private static final AtomicInteger IDS = new AtomicInteger();
+    private static final ClassValue<Map<Annotation, Interned>> TABLES = new ClassValue<>() {
+        @Override
+        protected Map<Annotation, Interned> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private Qualifiers() {
+    }
+
+    /**
+     * hashes the qualifier, and compares it to the interned one if there is an equal one
+     */
+    static Interned intern(Annotation qualifier) {
+        return TABLES.get(qualifier.annotationType()).computeIfAbsent(qualifier, q -> new Interned(q, IDS.incrementAndGet()));
+    }
+
+    record Interned(Annotation annotation, int id) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.ScopeNotActiveException;
+import java.util.concurrent.Callable;
+
+/**
+ * explicit handle of a request, {@link RequestScoped} components resolve to one instance per handle.
+ * the thread only references the handle while it is open, closing it drops every instance and closes
+ * the {@link AutoCloseable} ones, so nothing is left behind on short lived or virtual threads
+ * <pre>
+ * try (RequestScope request = RequestScope.open()) {
+ *     context.get(ref);
+ * }
+ * </pre>
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:30
+ **/
+public final class RequestScope implements AutoCloseable {
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private final ScopedInstances instances = new ScopedInstances(RequestScoped.class);
+    private final RequestScope previous;
+
+    private RequestScope(RequestScope previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * open a request on the current thread until {@link #close()}, requests opened inside it are nested
+     */
+    public static RequestScope open() {
+        RequestScope scope = new RequestScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return request open on the current thread, or {@code null}
+     */
+    static RequestScope active() {
+        return CURRENT.get();
+    }
+
+    static ScopedInstances current() {
+        RequestScope scope = CURRENT.get();
+        if (scope == null) {
+            throw new ScopeNotActiveException(RequestScoped.class);
+        }
+        return scope.instances;
+    }
+
+    private static void restore(RequestScope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    /**
+     * run a task of this request on the current thread, e.g. work handed over to an executor
+     */
+    public void run(Runnable task) {
+        RequestScope outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(outer);
+        }
+    }
+
+    /**
+     * like {@link #run(Runnable)} with a result
+     */
+    public <V> V call(Callable<V> task) throws Exception {
+        RequestScope outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            restore(outer);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            restore(previous);
+        }
+        instances.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.time.tdd.di.container;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import jakarta.inject.Scope;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * one instance per {@link RequestScope}, resolving it outside an open request fails
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:03
+ **/
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface RequestScoped {
+}
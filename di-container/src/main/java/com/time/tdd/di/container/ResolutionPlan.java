@@ -0,0 +1,511 @@
+package com.time.tdd.di.container;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jakarta.inject.Provider;
+
+/**
+ * context compiled from the bindings of {@link ContextConfig}, every component owns an array slot.
+ * the dependencies of every bound provider are compiled into a {@link Wiring}, the slots they resolve to in the order
+ * of {@link ComponentProvider#getDependencies()}, which the provider gets as its context and resolves by index.
+ * refs of callers of {@link #get} are looked up every time.
+ * instances lent by a scope, e.g. a pool, and injected into a dependent are recorded on the slot of the dependent,
+ * which keeps them until it is released through {@link #release}, unless its own scope takes it back,
+ * is garbage collected or the plan is closed.
+ * every slot also owns one {@link Provider} handle, so resolving {@code Provider<T>} allocates nothing,
+ * and a {@link Lazy} only wraps that handle. {@code List<T>} and {@code Set<T>} are linked to the slots
+ * of every binding of {@code T} in registration order.
+ * components bound to the same provider, e.g. by one bind call with several qualifiers, are aliases of one slot,
+ * sharing its handle and scoped instances, and make one element of a multibinding.
+ * components not bound in a child plan are linked to the slot of its parent, and always resolved by the parent.
+ * the plan copies the bindings into immutable arrays, so it is safely read from any thread while the config changes
+ *
+ * @author XuJian
+ * @date 2023-03-13 20:41
+ **/
+class ResolutionPlan implements Context {
+    private static final int MISSING = SlotTable.MISSING;
+    private static final Slot[] NONE = new Slot[0];
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+    // lent instances injected into the dependent being built on the thread
+    private static final ThreadLocal<List<Borrowed>> BORROWING = new ThreadLocal<>();
+
+    private final ResolutionPlan parent;
+    private final SlotTable slots;
+    private final Component[] components;
+    private final Component[][] aliases;
+    private final ComponentProvider<?>[] providers;
+    // Optional of the slot's Provider handle, so resolving Provider<T> allocates no Optional either
+    private final Optional<?>[] handles;
+    private final boolean[] lending;
+    // dependents built by the slot -> giving back the lent instances injected into them,
+    // only for slots injecting lent instances
+    private final Map<Object, Cleaner.Cleanable>[] borrowed;
+    private final Map<Class<?>, Slot[]> elements = new HashMap<>();
+    private final Wiring[] wirings;
+    private final ContainerMonitor monitor;
+    private final Executor executor;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Disposal disposal = Disposal.NONE;
+
+    ResolutionPlan(Map<Component, ComponentProvider<?>> components) {
+        this(components, null, ContainerMonitor.NONE, null);
+    }
+
+    ResolutionPlan(Map<Component, ComponentProvider<?>> components, ResolutionPlan parent, ContainerMonitor monitor,
+                   Executor executor) {
+        this.parent = parent;
+        this.monitor = monitor;
+        this.executor = executor;
+        // every qualifier and type bound to one provider is an alias of a single slot
+        Map<ComponentProvider<?>, Integer> bound = new IdentityHashMap<>();
+        List<Component> keys = new ArrayList<>(components.size());
+        int[] slotted = new int[components.size()];
+        List<List<Component>> aliases = new ArrayList<>();
+        for (Map.Entry<Component, ComponentProvider<?>> entry : components.entrySet()) {
+            Integer slot = bound.get(entry.getValue());
+            if (slot == null) {
+                slot = aliases.size();
+                bound.put(entry.getValue(), slot);
+                aliases.add(new ArrayList<>());
+            }
+            aliases.get(slot).add(entry.getKey());
+            slotted[keys.size()] = slot;
+            keys.add(entry.getKey());
+        }
+        this.aliases = aliases.stream().map(a -> a.toArray(Component[]::new)).toArray(Component[][]::new);
+        this.components = new Component[aliases.size()];
+        this.providers = new ComponentProvider<?>[aliases.size()];
+        this.handles = new Optional<?>[aliases.size()];
+        this.lending = new boolean[aliases.size()];
+        for (int index = 0; index < aliases.size(); index++) {
+            this.components[index] = this.aliases[index][0];
+            providers[index] = components.get(this.components[index]);
+            handles[index] = Optional.of(new Handle<>(index));
+            lending[index] = providers[index].lends();
+        }
+        this.slots = new SlotTable(keys, slotted);
+        linkElements(keys, slotted);
+        this.wirings = new Wiring[aliases.size()];
+        this.borrowed = new Map[aliases.size()];
+        for (int index = 0; index < aliases.size(); index++) {
+            wirings[index] = new Wiring(providers[index].getDependencies());
+            if (wirings[index].borrows()) {
+                borrowed[index] = Collections.synchronizedMap(new WeakHashMap<>());
+            }
+        }
+    }
+
+    /**
+     * slot a dependency resolves to, a deferred multibinding to the slot of the multibinding it defers
+     */
+    private Slot link(ComponentRef<?> ref) {
+        return ref.inner() != null && isDeferred(ref) ? lookup(ref.inner()) : lookup(ref);
+    }
+
+    private void linkElements(List<Component> keys, int[] slotted) {
+        Map<Class<?>, List<Slot>> byType = new HashMap<>();
+        Map<Class<?>, BitSet> listed = new HashMap<>();
+        for (int key = 0; key < keys.size(); key++) {
+            Class<?> type = keys.get(key).type();
+            List<Slot> elements = byType.get(type);
+            if (elements == null) {
+                elements = new ArrayList<>();
+                // inherited bindings were registered first, unless this plan overrides them
+                for (Slot inherited : parent == null ? NONE : parent.elementsOf(type)) {
+                    if (!overrides(inherited, type)) {
+                        elements.add(inherited);
+                    }
+                }
+                byType.put(type, elements);
+            }
+            // qualifiers aliasing one binding make a single element
+            BitSet slots = listed.computeIfAbsent(type, t -> new BitSet());
+            if (!slots.get(slotted[key])) {
+                slots.set(slotted[key]);
+                elements.add(new Slot(this, slotted[key], null));
+            }
+        }
+        byType.forEach((type, elements) -> this.elements.put(type, elements.toArray(Slot[]::new)));
+    }
+
+    private boolean overrides(Slot inherited, Class<?> type) {
+        for (Component alias : inherited.owner.aliases[inherited.index]) {
+            if (alias.type() == type && slots.contains(alias)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        return get(ref, false);
+    }
+
+    /**
+     * @param injected resolved for a component being built, instances lent by its scope are given back right away
+     */
+    private <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref, boolean injected) {
+        if (!isResolvable(ref)) {
+            return Optional.empty();
+        }
+        if (ref.inner() != null) {
+            return Optional.of((ComponentType) deferred(ref, lookup(ref.inner())));
+        }
+        Slot slot = lookup(ref);
+        if (slot.owner == null) {
+            return Optional.empty();
+        }
+        if (ref.getContainer() == Provider.class) {
+            return (Optional<ComponentType>) slot.owner.handles[slot.index];
+        }
+        return Optional.of((ComponentType) resolve(ref, slot, injected));
+    }
+
+    /**
+     * a dependent its scope takes back keeps the lent instances injected into it, it is handed out again as it is
+     */
+    @Override
+    public <ComponentType> void release(ComponentRef<ComponentType> ref, ComponentType instance) {
+        Slot slot = lookup(ref);
+        if (slot.owner != null && !ref.isContainer()) {
+            ResolutionPlan owner = slot.owner;
+            ((ComponentProvider<ComponentType>) owner.providers[slot.index]).release(instance);
+            if (!owner.lending[slot.index] && owner.borrowed[slot.index] != null) {
+                Cleaner.Cleanable held = owner.borrowed[slot.index].remove(instance);
+                if (held != null) {
+                    held.clean();
+                }
+            }
+        }
+    }
+
+    private static void giveBack(List<Borrowed> borrowed) {
+        for (Borrowed lent : borrowed) {
+            lent.provider().release(lent.instance());
+        }
+    }
+
+    /**
+     * runs once, when the dependent is released, collected or the plan closed, and holds nothing of the dependent
+     */
+    private static Runnable givingBack(List<Borrowed> borrowed) {
+        return () -> giveBack(borrowed);
+    }
+
+    private static boolean isResolvable(ComponentRef<?> ref) {
+        if (ref.isContainer() && !isSupported(ref.getContainer())
+            || ref.isMultibinding() && ref.component().qualifier() != null) {
+            return false;
+        }
+        return ref.inner() == null || isDeferred(ref);
+    }
+
+    private static boolean isSupported(Type container) {
+        return container == Provider.class || container == Lazy.class || container == List.class || container == Set.class;
+    }
+
+    /**
+     * only a multibinding is deferred by a {@link Provider} or {@link Lazy}, e.g. {@code Provider<List<T>>}
+     */
+    static boolean isDeferred(ComponentRef<?> ref) {
+        return (ref.getContainer() == Provider.class || ref.getContainer() == Lazy.class)
+            && ref.inner().isMultibinding() && ref.inner().inner() == null;
+    }
+
+    /**
+     * like a {@link Provider} handle, the instances got through it are the caller's
+     */
+    private static Object deferred(ComponentRef<?> ref, Slot multibinding) {
+        Provider<?> provider = () -> resolve(ref.inner(), multibinding, false);
+        return ref.getContainer() == Provider.class ? provider : new MemoizedLazy<>(provider);
+    }
+
+    private static Object resolve(ComponentRef<?> ref, Slot slot, boolean injected) {
+        ResolutionPlan owner = slot.owner;
+        if (!ref.isContainer()) {
+            return injected ? owner.injected(slot.index) : owner.instance(slot.index);
+        }
+        if (slot.elements != null) {
+            Object[] instances = new Object[slot.elements.length];
+            for (int i = 0; i < instances.length; i++) {
+                Slot element = slot.elements[i];
+                instances[i] = injected ? element.owner.injected(element.index) : element.owner.instance(element.index);
+            }
+            List<Object> list = Arrays.asList(instances);
+            return ref.getContainer() == List.class
+                ? Collections.unmodifiableList(list) : Collections.unmodifiableSet(new LinkedHashSet<>(list));
+        }
+        Provider<?> handle = (Provider<?>) owner.handles[slot.index].get();
+        return ref.getContainer() == Provider.class ? handle : new MemoizedLazy<>(handle);
+    }
+
+    private Object injected(int index) {
+        Object instance = instance(index);
+        if (lending[index]) {
+            List<Borrowed> borrowing = BORROWING.get();
+            if (borrowing != null) {
+                borrowing.add(new Borrowed((ComponentProvider<Object>) providers[index], instance));
+            }
+        }
+        return instance;
+    }
+
+    private Object instance(int index) {
+        if (borrowed[index] == null) {
+            return build(index);
+        }
+        List<Borrowed> borrowing = Collections.synchronizedList(new ArrayList<>());
+        List<Borrowed> previous = enter(borrowing);
+        Object instance;
+        try {
+            instance = build(index);
+        } catch (RuntimeException | Error e) {
+            giveBack(borrowing);
+            throw e;
+        } finally {
+            leave(previous);
+        }
+        // a scope handing out an instance it holds built nothing
+        if (!borrowing.isEmpty()) {
+            borrowed[index].put(instance, Cleaning.CLEANER.register(instance, givingBack(List.copyOf(borrowing))));
+        }
+        return instance;
+    }
+
+    private Object build(int index) {
+        if (monitor == ContainerMonitor.NONE) {
+            return providers[index].get(wirings[index]);
+        }
+        int[] depth = DEPTH.get();
+        monitor.resolved(components[index], depth[0]++);
+        try {
+            return providers[index].get(wirings[index]);
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * @return lent instances injected into the dependent being built on the thread, carried into forks
+     */
+    static List<Borrowed> borrowing() {
+        return BORROWING.get();
+    }
+
+    /**
+     * record lent instances injected on the thread into the dependent until {@link #leave(List)}
+     *
+     * @return borrowing to hand to {@link #leave(List)}
+     */
+    static List<Borrowed> enter(List<Borrowed> borrowing) {
+        List<Borrowed> previous = BORROWING.get();
+        BORROWING.set(borrowing);
+        return previous;
+    }
+
+    static void leave(List<Borrowed> previous) {
+        BORROWING.set(previous);
+    }
+
+    /**
+     * monitor of the plan resolving through the context, components resolved by a parent report to its monitor
+     */
+    static ContainerMonitor monitorOf(Context context) {
+        if (context instanceof Wiring wiring) {
+            return wiring.plan().monitor;
+        }
+        return context instanceof ResolutionPlan plan ? plan.monitor : ContainerMonitor.NONE;
+    }
+
+    /**
+     * set before the plan is handed out
+     */
+    void disposeWith(Disposal disposal) {
+        this.disposal = disposal;
+    }
+
+    /**
+     * lent instances still held by dependents are given back first, so their scopes dispose them in order
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            for (Map<Object, Cleaner.Cleanable> dependents : borrowed) {
+                if (dependents != null) {
+                    List<Cleaner.Cleanable> held;
+                    synchronized (dependents) {
+                        held = new ArrayList<>(dependents.values());
+                        dependents.clear();
+                    }
+                    held.forEach(Cleaner.Cleanable::clean);
+                }
+            }
+            disposal.dispose();
+        }
+    }
+
+    /**
+     * whether the component is bound in this plan or one of its parents
+     */
+    boolean contains(Component component) {
+        return slots.contains(component) || parent != null && parent.contains(component);
+    }
+
+    private Slot[] elementsOf(Class<?> type) {
+        Slot[] slotted = elements.get(type);
+        if (slotted != null) {
+            return slotted;
+        }
+        return parent == null ? NONE : parent.elementsOf(type);
+    }
+
+    private Slot lookup(ComponentRef<?> ref) {
+        return ref.isMultibinding() ? new Slot(this, MISSING, elementsOf(ref.component().type())) : lookup(ref.component());
+    }
+
+    private Slot lookup(Component component) {
+        int index = slots.slotOf(component);
+        if (index != MISSING) {
+            return new Slot(this, index, null);
+        }
+        return parent != null ? parent.lookup(component) : new Slot(null, MISSING, null);
+    }
+
+    /**
+     * provider handle of a slot, bound to the slot so {@link #get()} does no lookup
+     */
+    private class Handle<T> implements Provider<T> {
+        private final int index;
+
+        Handle(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public T get() {
+            return (T) instance(index);
+        }
+    }
+
+    /**
+     * the dependencies of one bound provider compiled to their slots, handed to the provider as its context.
+     * resolving by index does no lookup, instances lent by a scope, e.g. a pool, are given back once injected
+     */
+    class Wiring implements Dependencies {
+        private final List<ComponentRef<?>> dependencies;
+        private final ComponentRef<?>[] refs;
+        private final Slot[] slots;
+        private final boolean[] resolvable;
+        private final boolean borrows;
+
+        Wiring(List<ComponentRef<?>> dependencies) {
+            this.dependencies = dependencies;
+            this.refs = dependencies.toArray(ComponentRef<?>[]::new);
+            this.slots = new Slot[refs.length];
+            this.resolvable = new boolean[refs.length];
+            boolean borrows = false;
+            for (int i = 0; i < refs.length; i++) {
+                slots[i] = link(refs[i]);
+                resolvable[i] = isResolvable(refs[i]) && slots[i].owner != null;
+                borrows |= refs[i].inner() == null && lends(refs[i], slots[i]);
+            }
+            this.borrows = borrows;
+        }
+
+        private static boolean lends(ComponentRef<?> ref, Slot slot) {
+            if (slot.elements != null) {
+                for (Slot element : slot.elements) {
+                    if (element.owner.lending[element.index]) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return !ref.isContainer() && slot.owner != null && slot.owner.lending[slot.index];
+        }
+
+        /**
+         * whether lent instances are injected into the dependents the slot builds
+         */
+        boolean borrows() {
+            return borrows;
+        }
+
+        /**
+         * whether these are the dependencies of the provider, by identity, as scopes hand the list of the provider
+         * they wrap. a provider given the wiring of another resolves by ref
+         */
+        boolean wires(List<ComponentRef<?>> dependencies) {
+            return this.dependencies == dependencies;
+        }
+
+        @Override
+        public Object resolve(int index) {
+            ComponentRef<?> ref = refs[index];
+            if (!resolvable[index]) {
+                return ResolutionPlan.this.get(ref, true).orElseThrow();
+            }
+            if (ref.inner() != null) {
+                return deferred(ref, slots[index]);
+            }
+            return ResolutionPlan.resolve(ref, slots[index], true);
+        }
+
+        @Override
+        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+            return ResolutionPlan.this.get(ref);
+        }
+
+        @Override
+        public <ComponentType> void release(ComponentRef<ComponentType> ref, ComponentType instance) {
+            ResolutionPlan.this.release(ref, instance);
+        }
+
+        /**
+         * @return executor constructor dependencies are resolved on side by side, {@code null} to resolve them in order
+         */
+        Executor executor() {
+            return executor;
+        }
+
+        ResolutionPlan plan() {
+            return ResolutionPlan.this;
+        }
+    }
+
+    /**
+     * started on first use, plans without lent instances don't start its thread
+     */
+    private static class Cleaning {
+        static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    /**
+     * lent instance injected into a dependent, given back to the provider that lent it
+     */
+    record Borrowed(ComponentProvider<Object> provider, Object instance) {
+    }
+
+    /**
+     * slot a ref is linked to by a plan, owned by that plan or one of its parents, or by none if missing.
+     * a multibinding is owned by the plan linking it and holds the slots of its elements
+     */
+    record Slot(ResolutionPlan owner, int index, Slot[] elements) {
+    }
+}
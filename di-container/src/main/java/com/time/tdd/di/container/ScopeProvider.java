@@ -1,10 +1,19 @@
 package com.time.tdd.di.container;
 
+import java.lang.annotation.Annotation;
+
 /**
  * @author XuJian
  * @date 2023-03-06 21:26
  **/
 interface ScopeProvider {
     ComponentProvider<?> create(ComponentProvider<?> provider);
+
+    /**
+     * create with the scope annotation of the binding, so one scope can be configured per binding
+     */
+    default ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+        return create(provider);
+    }
 }
 
@@ -0,0 +1,87 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.ScopeNotActiveException;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+
+/**
+ * instances of one unit of work, e.g. a request, which only holds a few so they are kept in flat arrays keyed by
+ * provider identity
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:10
+ **/
+class ScopedInstances {
+    private final Class<? extends Annotation> scope;
+    private Object[] keys = new Object[4];
+    private Object[] values = new Object[4];
+    private int size;
+    private boolean closed;
+
+    ScopedInstances(Class<? extends Annotation> scope) {
+        this.scope = scope;
+    }
+
+    synchronized Object get(Object key) {
+        if (closed) {
+            throw new ScopeNotActiveException(scope);
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the instance already held for the key, or the given one
+     */
+    synchronized Object putIfAbsent(Object key, Object value) {
+        Object existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size++] = value;
+        return value;
+    }
+
+    /**
+     * close the {@link AutoCloseable} instances, latest created first
+     */
+    void close() {
+        Object[] instances;
+        int count;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            instances = values;
+            count = size;
+            keys = values = null;
+        }
+        RuntimeException failure = null;
+        for (int i = count - 1; i >= 0; i--) {
+            if (instances[i] instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = new RuntimeException("failed to close " + scope.getSimpleName() + " instances", e);
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * one instance per current unit of work, the instances are held by the unit of work rather than the provider
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:25
+ **/
+class ScopedProvider<T> implements ComponentProvider<T> {
+    private final ComponentProvider<T> provider;
+    private final Supplier<ScopedInstances> current;
+
+    public ScopedProvider(ComponentProvider<T> provider, Supplier<ScopedInstances> current) {
+        this.provider = provider;
+        this.current = current;
+    }
+
+    @Override
+    public T get(Context context) {
+        ScopedInstances instances = current.get();
+        Object instance = instances.get(this);
+        if (instance == null) {
+            T created = provider.get(context);
+            instance = instances.putIfAbsent(this, created);
+            // another thread of the unit of work got there first, its instance is the one kept
+            if (instance != created && created instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("can't close duplicate instance", e);
+                }
+            }
+        }
+        return (T) instance;
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+}
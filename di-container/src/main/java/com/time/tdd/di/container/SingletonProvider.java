@@ -3,12 +3,15 @@ package com.time.tdd.di.container;
 import java.util.List;
 
 /**
+ * lazily built once, readers only pay a volatile read once the singleton is published
+ *
  * @author XuJian
  * @date 2023-03-06 21:21
  **/
 class SingletonProvider<T> implements ComponentProvider<T> {
     private final ComponentProvider<T> provider;
-    private T singleton;
+    private volatile T singleton;
+    private boolean disposed;
 
     public SingletonProvider(ComponentProvider<T> provider) {
         this.provider = provider;
@@ -16,10 +19,43 @@ class SingletonProvider<T> implements ComponentProvider<T> {
 
     @Override
     public T get(Context context) {
-        if (singleton == null) {
-            singleton = provider.get(context);
+        ContainerMonitor monitor = ResolutionPlan.monitorOf(context);
+        T instance = singleton;
+        if (instance != null) {
+            if (monitor != ContainerMonitor.NONE) {
+                monitor.scoped(ContainerMonitor.Scope.SINGLETON, true);
+            }
+            return instance;
+        }
+        synchronized (this) {
+            if (monitor != ContainerMonitor.NONE) {
+                monitor.scoped(ContainerMonitor.Scope.SINGLETON, singleton != null);
+            }
+            if (singleton == null) {
+                if (disposed) {
+                    throw new IllegalStateException("context closed");
+                }
+                T created = provider.get(context);
+                // a provider injected into the component may already have published one while constructing
+                if (singleton == null) {
+                    singleton = created;
+                }
+            }
+            return singleton;
+        }
+    }
+
+    @Override
+    public void dispose() throws Exception {
+        T instance;
+        synchronized (this) {
+            disposed = true;
+            instance = singleton;
+            singleton = null;
+        }
+        if (instance instanceof AutoCloseable closeable) {
+            closeable.close();
         }
-        return singleton;
     }
 
     @Override
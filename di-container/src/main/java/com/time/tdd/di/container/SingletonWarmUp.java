@@ -0,0 +1,56 @@
+package com.time.tdd.di.container;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * builds singletons before the context is handed out, level by level: a level only depends on the levels
+ * below it, so all singletons of a level are built in parallel
+ *
+ * @author XuJian
+ * @date 2023-03-15 21:12
+ **/
+class SingletonWarmUp {
+    private final Map<Component, ComponentProvider<?>> components;
+    private final Executor executor;
+    private final BiConsumer<Component, Duration> listener;
+
+    SingletonWarmUp(Map<Component, ComponentProvider<?>> components, Options options) {
+        this.components = components;
+        this.executor = options.executor();
+        this.listener = options.listener();
+    }
+
+    /**
+     * @param order components sorted by {@link DependencyGraph#sort(Map)}
+     */
+    void warmUp(Context context, List<Component> order) {
+        for (List<Component> level : DependencyGraph.levels(components, order, SingletonProvider.class::isInstance)) {
+            CompletableFuture<?>[] building = level.stream()
+                .map(component -> CompletableFuture.runAsync(() -> build(context, component), executor))
+                .toArray(CompletableFuture<?>[]::new);
+            try {
+                CompletableFuture.allOf(building).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void build(Context context, Component component) {
+        long start = System.nanoTime();
+        context.get(ComponentRef.of(component.type(), component.qualifier()));
+        listener.accept(component, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    record Options(Executor executor, BiConsumer<Component, Duration> listener) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * immutable open addressing table from component to slot, built once per plan and read without locks.
+ * keys, hashes and slots sit in flat arrays at most half full, so a lookup is a few linear probes
+ * comparing cached hashes before calling equals. several components may alias one slot
+ *
+ * @author XuJian
+ * @date 2023-03-19 17:20
+ **/
+final class SlotTable {
+    static final int MISSING = -1;
+
+    private final Component[] keys;
+    private final int[] hashes;
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * @param components distinct components, each slotted at its position in the list
+     */
+    SlotTable(List<Component> components) {
+        this(components, IntStream.range(0, components.size()).toArray());
+    }
+
+    /**
+     * @param components distinct components
+     * @param slots      slot of the component at the same position
+     */
+    SlotTable(List<Component> components, int[] slots) {
+        int capacity = Integer.highestOneBit(Math.max(components.size(), 1) * 2 - 1) << 1;
+        this.keys = new Component[capacity];
+        this.hashes = new int[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int position = 0; position < components.size(); position++) {
+            Component component = components.get(position);
+            int hash = spread(component.hashCode());
+            int index = hash & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = component;
+            hashes[index] = hash;
+            this.slots[index] = slots[position];
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int slotOf(Component component) {
+        int hash = spread(component.hashCode());
+        for (int index = hash & mask; ; index = (index + 1) & mask) {
+            Component key = keys[index];
+            if (key == null) {
+                return MISSING;
+            }
+            if (hashes[index] == hash && (key == component || key.equals(component))) {
+                return slots[index];
+            }
+        }
+    }
+
+    boolean contains(Component component) {
+        return slotOf(component) != MISSING;
+    }
+}
@@ -0,0 +1,18 @@
+package com.time.tdd.di.container;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import jakarta.inject.Scope;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * one instance per thread and context, kept until the context is closed. prefer {@link RequestScoped} on virtual threads
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:02
+ **/
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface ThreadScoped {
+}
@@ -0,0 +1,138 @@
+package com.time.tdd.di.container;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * one instance per thread for one binding. the instances are held by a thread local of the thread, so they go away
+ * with it, and the provider only keeps weak references to the threads that hold one, so closing the context still
+ * closes the instance of every thread alive. work resolved on behalf of a thread, e.g. a fork of
+ * {@link ConcurrentResolution}, carries the instances of that thread
+ *
+ * @author XuJian
+ * @date 2023-03-19 14:20
+ **/
+class ThreadScopedProvider<T> implements ComponentProvider<T> {
+    private static final ThreadLocal<Instances> THREAD = ThreadLocal.withInitial(Instances::new);
+
+    private final ComponentProvider<T> provider;
+    // threads holding an instance of this provider, weakly
+    private final Map<Instances, Boolean> threads = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile boolean disposed;
+
+    public ThreadScopedProvider(ComponentProvider<T> provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * @return instances of the thread resolved for
+     */
+    static Instances current() {
+        return THREAD.get();
+    }
+
+    /**
+     * resolve for the thread of the instances until {@link #leave(Instances)}
+     *
+     * @return instances to hand to {@link #leave(Instances)}
+     */
+    static Instances enter(Instances thread) {
+        Instances previous = THREAD.get();
+        THREAD.set(thread);
+        return previous;
+    }
+
+    static void leave(Instances previous) {
+        THREAD.set(previous);
+    }
+
+    @Override
+    public T get(Context context) {
+        if (disposed) {
+            throw new IllegalStateException("context closed");
+        }
+        Instances thread = THREAD.get();
+        T instance = (T) thread.instances.get(this);
+        if (instance != null) {
+            return instance;
+        }
+        T created = provider.get(context);
+        instance = (T) thread.instances.putIfAbsent(this, created);
+        if (instance != null) {
+            // forks resolving for the same thread may race, the instance kept is the first one registered
+            close(created);
+            return instance;
+        }
+        threads.put(thread, Boolean.TRUE);
+        if (disposed) {
+            // closed while constructing, dispose may have missed the thread
+            thread.instances.remove(this);
+            close(created);
+            throw new IllegalStateException("context closed");
+        }
+        return created;
+    }
+
+    private static void close(Object duplicate) {
+        if (duplicate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("can't close duplicate instance", e);
+            }
+        }
+    }
+
+    /**
+     * @return threads still holding an instance, the ones gone are left out once collected
+     */
+    int threads() {
+        return threads.size();
+    }
+
+    /**
+     * close the {@link AutoCloseable} instances of every thread still alive
+     */
+    @Override
+    public void dispose() throws Exception {
+        disposed = true;
+        List<Instances> alive;
+        synchronized (threads) {
+            alive = new ArrayList<>(threads.keySet());
+            threads.clear();
+        }
+        Exception failure = null;
+        for (Instances thread : alive) {
+            if (thread.instances.remove(this) instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    /**
+     * thread scoped instances of one thread by provider, reachable from the thread and the forks resolving for it.
+     * providers are held weakly, an instance doesn't keep a context that was never closed
+     */
+    static final class Instances {
+        private final Map<ThreadScopedProvider<?>, Object> instances = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+}
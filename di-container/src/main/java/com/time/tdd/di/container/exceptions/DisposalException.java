@@ -0,0 +1,14 @@
+package com.time.tdd.di.container.exceptions;
+
+/**
+ * closing a context didn't dispose every instance, failures of single instances are suppressed by this one
+ *
+ * @author XuJian
+ * @date 2023-03-21 20:35
+ **/
+public class DisposalException extends RuntimeException {
+    public DisposalException(String message, Iterable<Throwable> failures) {
+        super(message);
+        failures.forEach(this::addSuppressed);
+    }
+}
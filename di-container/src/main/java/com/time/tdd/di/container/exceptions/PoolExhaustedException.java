@@ -0,0 +1,26 @@
+package com.time.tdd.di.container.exceptions;
+
+import java.time.Duration;
+
+/**
+ * @author XuJian
+ * @date 2023-03-14 21:37
+ **/
+public class PoolExhaustedException extends RuntimeException {
+    private final int size;
+    private final Duration timeout;
+
+    public PoolExhaustedException(int size, Duration timeout) {
+        super("all " + size + " pooled instances are in use");
+        this.size = size;
+        this.timeout = timeout;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
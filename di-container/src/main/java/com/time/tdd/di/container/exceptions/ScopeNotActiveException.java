@@ -0,0 +1,20 @@
+package com.time.tdd.di.container.exceptions;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * @author XuJian
+ * @date 2023-03-19 14:12
+ **/
+public class ScopeNotActiveException extends RuntimeException {
+    private final Class<? extends Annotation> scope;
+
+    public ScopeNotActiveException(Class<? extends Annotation> scope) {
+        super("no active @" + scope.getSimpleName() + " scope on " + Thread.currentThread().getName());
+        this.scope = scope;
+    }
+
+    public Class<? extends Annotation> getScope() {
+        return scope;
+    }
+}
@@ -0,0 +1,167 @@
+package com.time.tdd.di.container.tck;
+
+import com.time.tdd.di.container.ComponentRef;
+import com.time.tdd.di.container.Context;
+import com.time.tdd.di.container.ContextConfig;
+import com.time.tdd.di.container.Instantiation;
+import java.lang.annotation.Annotation;
+import java.util.Objects;
+import jakarta.inject.Named;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestResult;
+import junit.framework.TestSuite;
+import org.atinject.tck.Tck;
+import org.atinject.tck.auto.Car;
+import org.atinject.tck.auto.Convertible;
+import org.atinject.tck.auto.Drivers;
+import org.atinject.tck.auto.DriversSeat;
+import org.atinject.tck.auto.Engine;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.Tire;
+import org.atinject.tck.auto.V8Engine;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.atinject.tck.auto.accessories.SpareTire;
+
+/**
+ * the jakarta.inject TCK against a car from every {@link Instantiation}, followed by resolving whole cars to compare
+ * the engines with the reflective baseline. the scenarios only check the car, they aren't timed: the car is resolved
+ * once before any of them runs, so they would measure the assertions of the TCK and not the engine.
+ * a junit 3 suite, run by the vintage engine of the {@code tck} task
+ *
+ * @author XuJian
+ * @date 2023-03-23 20:15
+ **/
+public class InjectTck {
+    private static final int WARM_UP = 2_000;
+    private static final int RESOLUTIONS = 10_000;
+
+    public static Test suite() {
+        TckReport report = new TckReport(System.getProperty("tck.report"), System.getProperty("tck.maxRatio"));
+        TestSuite suite = new TestSuite("jakarta.inject TCK");
+        for (Instantiation engine : Instantiation.values()) {
+            Context context = context(engine);
+            TestSuite scenarios = new TestSuite(engine.name());
+            scenarios.addTest(Tck.testsFor(context.get(ComponentRef.of(Car.class)).orElseThrow(), false, true));
+            scenarios.addTest(new Resolution(engine, context, report));
+            suite.addTest(scenarios);
+        }
+        suite.addTest(new Baseline(report, suite.countTestCases()));
+        return suite;
+    }
+
+    static Context context(Instantiation engine) {
+        ContextConfig config = new ContextConfig();
+        config.instantiation(engine);
+        config.bind(Car.class, Convertible.class);
+        config.bind(Seat.class, Seat.class);
+        config.bind(Seat.class, DriversSeat.class, new DriversLiteral());
+        config.bind(Engine.class, V8Engine.class);
+        config.bind(Tire.class, Tire.class);
+        config.bind(Tire.class, SpareTire.class, new NamedLiteral("spare"));
+        config.bind(SpareTire.class, SpareTire.class);
+        config.bind(Cupholder.class, Cupholder.class);
+        config.bind(FuelTank.class, FuelTank.class);
+        return config.getContext();
+    }
+
+    /**
+     * average cost of resolving a new car with its whole graph, after warming the engine up
+     */
+    private static class Resolution extends TestCase {
+        private final Instantiation engine;
+        private final Context context;
+        private final TckReport report;
+
+        Resolution(Instantiation engine, Context context, TckReport report) {
+            super("resolve " + engine);
+            this.engine = engine;
+            this.context = context;
+            this.report = report;
+        }
+
+        @Override
+        protected void runTest() {
+            ComponentRef<Car> car = ComponentRef.of(Car.class);
+            for (int i = 0; i < WARM_UP; i++) {
+                assertNotNull(context.get(car).orElseThrow());
+            }
+            TckReport.Measurement measurement = report.start();
+            for (int i = 0; i < RESOLUTIONS; i++) {
+                context.get(car).orElseThrow();
+            }
+            report.resolved(engine, measurement.stop(RESOLUTIONS));
+        }
+    }
+
+    /**
+     * writes the report and fails engines resolving slower than allowed, run after every engine. fails as well if
+     * not every scenario ran, a run of nothing is no pass
+     */
+    private static class Baseline extends TestCase {
+        private final TckReport report;
+        private final int expected;
+        private int ran;
+
+        Baseline(TckReport report, int expected) {
+            super("compare with " + Instantiation.REFLECTION);
+            this.report = report;
+            this.expected = expected;
+        }
+
+        @Override
+        public void run(TestResult result) {
+            ran = result.runCount();
+            super.run(result);
+        }
+
+        @Override
+        protected void runTest() throws Exception {
+            report.write();
+            if (expected == 0 || ran < expected) {
+                fail("%d of %d scenarios ran".formatted(ran, expected));
+            }
+            for (Instantiation engine : Instantiation.values()) {
+                String slower = report.slowerThanAllowed(engine, Instantiation.REFLECTION);
+                if (slower != null) {
+                    fail(slower);
+                }
+            }
+        }
+    }
+
+    private record DriversLiteral() implements Drivers {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Drivers.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Drivers;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    private record NamedLiteral(String value) implements Named {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Named named && Objects.equals(value, named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.time.tdd.di.container.tck;
+
+import com.sun.management.ThreadMXBean;
+import com.time.tdd.di.container.Instantiation;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * time and bytes allocated per resolution of a car, for each engine.
+ * allocations are counted for the measuring thread only, which is the one the resolutions run on
+ *
+ * @author XuJian
+ * @date 2023-03-23 20:40
+ **/
+class TckReport {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Path file;
+    private final Double maxRatio;
+    private final List<String> rows = new ArrayList<>();
+    private final Map<Instantiation, Cost> resolutions = new EnumMap<>(Instantiation.class);
+
+    /**
+     * @param file     csv written after the run, {@code null} to only print the resolutions
+     * @param maxRatio resolution time allowed relative to the baseline, {@code null} to not gate on it
+     */
+    TckReport(String file, String maxRatio) {
+        this.file = file == null ? null : Path.of(file);
+        this.maxRatio = maxRatio == null ? null : Double.valueOf(maxRatio);
+    }
+
+    Measurement start() {
+        return new Measurement(System.nanoTime(), allocated());
+    }
+
+    synchronized void resolved(Instantiation engine, Cost cost) {
+        resolutions.put(engine, cost);
+        rows.add(String.join(",", engine.name(), "\"resolve car\"", String.valueOf(cost.nanos()), String.valueOf(cost.bytes())));
+    }
+
+    /**
+     * @return why the engine fails the gate, {@code null} if it passes or wasn't measured
+     */
+    synchronized String slowerThanAllowed(Instantiation engine, Instantiation baseline) {
+        Cost measured = resolutions.get(engine);
+        Cost base = resolutions.get(baseline);
+        if (maxRatio == null || engine == baseline || measured == null || base == null) {
+            return null;
+        }
+        double ratio = (double) measured.nanos() / base.nanos();
+        return ratio <= maxRatio ? null
+            : "%s resolves a car in %d ns, %.2f times %s, more than %.2f".formatted(engine, measured.nanos(), ratio,
+            baseline, maxRatio);
+    }
+
+    synchronized void write() throws IOException {
+        resolutions.forEach((engine, cost) -> System.out.printf("%s resolves a car in %d ns allocating %d bytes%n",
+            engine, cost.nanos(), cost.bytes()));
+        if (file == null) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add("engine,scenario,nanos,bytes");
+        lines.addAll(rows);
+        Files.write(file, lines);
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    record Measurement(long nanos, long bytes) {
+        /**
+         * @return average cost of each of the times the measured code ran
+         */
+        Cost stop(int times) {
+            return new Cost((System.nanoTime() - nanos) / times, (allocated() - bytes) / times);
+        }
+    }
+
+    record Cost(long nanos, long bytes) {
+    }
+}
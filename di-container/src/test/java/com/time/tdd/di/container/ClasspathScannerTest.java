@@ -0,0 +1,200 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.DependencyNotFoundException;
+import com.time.tdd.di.container.scanned.DefaultService;
+import com.time.tdd.di.container.scanned.Described;
+import com.time.tdd.di.container.scanned.FirstPlugin;
+import com.time.tdd.di.container.scanned.MemoryRepository;
+import com.time.tdd.di.container.scanned.PlainService;
+import com.time.tdd.di.container.scanned.Plugin;
+import com.time.tdd.di.container.scanned.Repository;
+import com.time.tdd.di.container.scanned.SecondPlugin;
+import com.time.tdd.di.container.scanned.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XuJian
+ * @date 2023-03-22 21:10
+ **/
+public class ClasspathScannerTest {
+    private static final String PACKAGE = Repository.class.getPackageName();
+
+    private final ClasspathScanner scanner = new ClasspathScanner(getClass().getClassLoader());
+    private ContextConfig config;
+    private Path jar;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        config = new ContextConfig();
+        jar = Files.createTempFile("scanned", ".jar");
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        Files.deleteIfExists(jar);
+    }
+
+    private static byte[] classFile(Class<?> type) throws IOException {
+        try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    private void pack(String index, Class<?>... classes) throws IOException {
+        try (OutputStream file = Files.newOutputStream(jar); JarOutputStream out = new JarOutputStream(file)) {
+            out.putNextEntry(new JarEntry(PACKAGE.replace('.', '/') + "/"));
+            for (Class<?> type : classes) {
+                out.putNextEntry(new JarEntry(type.getName().replace('.', '/') + ".class"));
+                out.write(classFile(type));
+            }
+            if (index != null) {
+                out.putNextEntry(new JarEntry(ClasspathScanner.INDEX));
+                out.write(index.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * loads the classes of the tests, but only finds resources in the jar
+     */
+    private ClassLoader jarOnly() throws IOException {
+        return new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return findResources(name);
+            }
+        };
+    }
+
+    private static String verifiedIndex(String... lines) {
+        return ClasspathScanner.VERIFIED + "\n" + String.join("\n", lines) + "\n";
+    }
+
+    @Test
+    void should_find_concrete_annotated_classes_only() {
+        assertEquals(List.of(DefaultService.class, FirstPlugin.class, MemoryRepository.class, SecondPlugin.class),
+            scanner.scan(PACKAGE).components());
+    }
+
+    @Test
+    void should_only_take_class_files_naming_inject_annotations_as_candidates() throws Exception {
+        assertTrue(ClasspathScanner.isCandidate(classFile(MemoryRepository.class)));
+        assertTrue(ClasspathScanner.isCandidate(classFile(SecondPlugin.class)));
+        assertFalse(ClasspathScanner.isCandidate(classFile(PlainService.class)));
+        assertFalse(ClasspathScanner.isCandidate(classFile(Repository.class)));
+    }
+
+    @Test
+    void should_scan_class_files_in_jar() throws Exception {
+        pack(null, Repository.class, MemoryRepository.class, PlainService.class);
+
+        assertEquals(Set.of(MemoryRepository.class.getName()), scanner.componentsIn(jar, PACKAGE));
+    }
+
+    @Test
+    void should_take_components_from_index_instead_of_scanning() throws Exception {
+        pack(DefaultService.class.getName() + "\n", MemoryRepository.class, DefaultService.class);
+
+        assertEquals(Set.of(DefaultService.class.getName()), scanner.componentsIn(jar, PACKAGE));
+    }
+
+    @Test
+    void should_bind_scanned_components_to_themselves_and_unambiguous_interfaces() {
+        config.scan(PACKAGE);
+        Context context = config.getContext();
+
+        Service service = context.get(ComponentRef.of(Service.class)).get();
+        assertSame(context.get(ComponentRef.of(Repository.class)).get(), service.repository());
+        assertSame(context.get(ComponentRef.of(MemoryRepository.class)).get(), service.repository());
+        assertTrue(context.get(ComponentRef.of(DefaultService.class)).isPresent());
+    }
+
+    @Test
+    void should_bind_scanned_components_whatever_else_they_are_annotated_with() {
+        assertTrue(MemoryRepository.class.isAnnotationPresent(Described.class));
+
+        config.scan(PACKAGE);
+
+        assertTrue(config.getContext().get(ComponentRef.of(MemoryRepository.class)).isPresent());
+    }
+
+    @Test
+    void should_not_bind_interface_implemented_by_several_components() {
+        config.scan(PACKAGE);
+        Context context = config.getContext();
+
+        assertFalse(context.get(ComponentRef.of(Plugin.class)).isPresent());
+        assertTrue(context.get(ComponentRef.of(FirstPlugin.class)).isPresent());
+        assertTrue(context.get(ComponentRef.of(SecondPlugin.class)).isPresent());
+    }
+
+    @Test
+    void should_keep_types_bound_before_scanning() {
+        Repository repository = new Repository() {
+        };
+        config.bind(Repository.class, repository);
+        config.scan(PACKAGE);
+
+        assertSame(repository, config.getContext().get(ComponentRef.of(Service.class)).get().repository());
+    }
+
+    @Test
+    void should_keep_dependency_order_of_verified_index() throws Exception {
+        pack(verifiedIndex(MemoryRepository.class.getName() + " " + Repository.class.getName(),
+            DefaultService.class.getName() + " " + Service.class.getName(), SecondPlugin.class.getName()));
+
+        ClasspathScanner.Scan scan = new ClasspathScanner(jarOnly()).scan(PACKAGE);
+
+        assertEquals(List.of(MemoryRepository.class, DefaultService.class, SecondPlugin.class), scan.components());
+        assertEquals(Set.of(Repository.class.getName()), scan.verified().get(MemoryRepository.class.getName()));
+    }
+
+    @Test
+    void should_not_take_index_as_verified_if_packages_leave_components_out() throws Exception {
+        pack(verifiedIndex(MemoryRepository.class.getName(), String.class.getName()));
+
+        assertNull(new ClasspathScanner(jarOnly()).scan(PACKAGE).verified());
+    }
+
+    @Test
+    void should_not_validate_context_of_verified_scan_again() throws Exception {
+        // claims a graph missing the repository of the service as verified
+        pack(verifiedIndex(DefaultService.class.getName() + " " + Service.class.getName()));
+        Thread thread = Thread.currentThread();
+        ClassLoader loader = thread.getContextClassLoader();
+        thread.setContextClassLoader(jarOnly());
+        try {
+            config.scan(PACKAGE);
+        } finally {
+            thread.setContextClassLoader(loader);
+        }
+
+        assertDoesNotThrow(() -> config.getContext());
+
+        config.bind(Plugin.class, new Plugin() {
+        });
+        assertThrows(DependencyNotFoundException.class, () -> config.getContext());
+    }
+}
@@ -0,0 +1,77 @@
+package com.time.tdd.di.container;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.inject.Provider;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XuJian
+ * @date 2023-03-24 20:30
+ **/
+public class ComponentRefTest {
+    Provider<List<Dependency>> providerOfList;
+    Provider<Dependency> provider;
+
+    private static Type typeOf(String field) throws Exception {
+        return ComponentRefTest.class.getDeclaredField(field).getGenericType();
+    }
+
+    private static ComponentRef<Provider<List<Dependency>>> providerOfList() {
+        return new ComponentRef<>() {
+        };
+    }
+
+    @Test
+    void should_share_one_ref_per_class_and_parameterized_type() throws Exception {
+        assertSame(ComponentRef.of(Dependency.class), ComponentRef.of(Dependency.class));
+        assertSame(ComponentRef.of(typeOf("providerOfList")), ComponentRef.of(typeOf("providerOfList")));
+        assertSame(ComponentRef.of(typeOf("providerOfList")).inner(), ComponentRef.of(typeOf("providerOfList")).inner());
+    }
+
+    @Test
+    void should_qualify_shared_ref_without_changing_it() throws Exception {
+        ComponentRef<?> qualified = ComponentRef.of(typeOf("provider"), new NamedLiteral("one"));
+
+        assertEquals(new NamedLiteral("one"), qualified.component().qualifier());
+        assertNull(ComponentRef.of(typeOf("provider")).component().qualifier());
+        assertEquals(Provider.class, qualified.getContainer());
+    }
+
+    @Test
+    void should_parse_anonymous_subclass_once() throws Exception {
+        ComponentRef<?> ref = providerOfList();
+
+        assertEquals(ref, providerOfList());
+        assertSame(ref.component(), providerOfList().component());
+        assertSame(ComponentRef.of(typeOf("providerOfList")).inner(), ref.inner());
+    }
+
+    @Test
+    void should_keep_parameterized_type_argument_as_inner_ref() throws Exception {
+        ComponentRef<?> ref = ComponentRef.of(typeOf("providerOfList"));
+
+        assertEquals(Provider.class, ref.getContainer());
+        assertTrue(ref.inner().isMultibinding());
+        assertEquals(Dependency.class, ref.component().type());
+        assertNotEquals(ComponentRef.of(typeOf("provider")), ref);
+    }
+
+    @Test
+    void should_compare_qualified_refs_built_by_callers_without_calling_into_qualifier() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ComponentRef<?> ref = ComponentRef.of(typeOf("provider"), new ComponentTest.CountedNamed("counted", calls));
+        ComponentRef<?> another = ComponentRef.of(typeOf("provider"), new ComponentTest.CountedNamed("counted", calls));
+        calls.set(0);
+
+        assertEquals(ref, another);
+        assertEquals(ref.hashCode(), another.hashCode());
+        assertEquals(0, calls.get());
+    }
+}
@@ -0,0 +1,75 @@
+package com.time.tdd.di.container;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author XuJian
+ * @date 2023-03-19 20:15
+ **/
+public class ComponentTest {
+
+    @Named("annotated")
+    Dependency annotated;
+
+    @Test
+    void should_intern_equal_qualifiers() throws Exception {
+        Component literal = new Component(Dependency.class, new NamedLiteral("annotated"));
+        Component proxy = new Component(Dependency.class, getClass().getDeclaredField("annotated").getAnnotation(Named.class));
+
+        assertEquals(literal, proxy);
+        assertEquals(literal.hashCode(), proxy.hashCode());
+        assertSame(literal.qualifier(), proxy.qualifier());
+        assertEquals(literal.qualifierId(), new Component(AnotherDependency.class, new NamedLiteral("annotated")).qualifierId());
+    }
+
+    @Test
+    void should_not_call_into_qualifier_once_created() {
+        AtomicInteger calls = new AtomicInteger();
+        Component component = new Component(Dependency.class, new CountedNamed("counted", calls));
+        Component another = new Component(Dependency.class, new CountedNamed("counted", calls));
+        Component other = new Component(Dependency.class, new NamedLiteral("other"));
+        calls.set(0);
+
+        assertEquals(component, another);
+        assertEquals(component.hashCode(), another.hashCode());
+        assertNotEquals(component, other);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void should_not_be_equal_if_type_or_qualifier_differs() {
+        Component component = new Component(Dependency.class, new NamedLiteral("one"));
+
+        assertNotEquals(component, new Component(Dependency.class, new NamedLiteral("another")));
+        assertNotEquals(component, new Component(AnotherDependency.class, new NamedLiteral("one")));
+        assertNotEquals(component, new Component(Dependency.class, null));
+    }
+
+    /**
+     * counts the calls comparing or hashing it
+     */
+    record CountedNamed(String value, AtomicInteger calls) implements Named {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            calls.incrementAndGet();
+            return o instanceof Named named && value.equals(named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            calls.incrementAndGet();
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+}
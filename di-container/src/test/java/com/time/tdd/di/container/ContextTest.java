@@ -3,18 +3,37 @@ package com.time.tdd.di.container;
 import com.time.tdd.di.container.InjectionTest.ConstructorInjection.Injection.InjectConstructor;
 import com.time.tdd.di.container.exceptions.CyclicDependenciesFoundException;
 import com.time.tdd.di.container.exceptions.DependencyNotFoundException;
+import com.time.tdd.di.container.exceptions.DisposalException;
 import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import com.time.tdd.di.container.exceptions.PoolExhaustedException;
+import com.time.tdd.di.container.exceptions.ScopeNotActiveException;
+import java.lang.annotation.Annotation;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Nested;
@@ -26,6 +45,7 @@ import org.mockito.internal.util.collections.Sets;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -96,201 +116,1406 @@ public class ContextTest {
             assertSame(instance, provider.get());
         }
 
+        @Test
+        void should_retrieve_bind_type_as_lazy() {
+            config.bind(TestComponent.class, instance);
+            Context context = config.getContext();
+            Lazy<TestComponent> lazy = context.get(new ComponentRef<Lazy<TestComponent>>() {
+            }).get();
+            assertSame(instance, lazy.get());
+        }
+
+        @Test
+        void should_resolve_lazy_dependency_once_on_first_use() {
+            config.bind(Dependency.class, CountedDependency.class);
+            config.bind(TestComponent.class, LazyInjection.class);
+            Context context = config.getContext();
+            CountedDependency.constructed.set(0);
+
+            LazyInjection component = (LazyInjection) context.get(ComponentRef.of(TestComponent.class)).get();
+            assertEquals(0, CountedDependency.constructed.get());
+
+            assertSame(component.dependency(), component.dependency());
+            assertEquals(1, CountedDependency.constructed.get());
+        }
+
+        @Test
+        void should_retrieve_same_provider_for_same_binding() {
+            config.bind(TestComponent.class, instance);
+            Context context = config.getContext();
+            ComponentRef<Provider<TestComponent>> ref = new ComponentRef<>() {
+            };
+
+            assertSame(context.get(ref).get(), context.get(ref).get());
+            assertSame(context.get(ref), context.get(new ComponentRef<Provider<TestComponent>>() {
+            }));
+        }
+
         @Test
         void should_not_retrieve_bind_type_as_unsupported_container() {
             config.bind(TestComponent.class, instance);
             Context context = config.getContext();
 
-            assertFalse(context.get(new ComponentRef<List<TestComponent>>() {
+            assertFalse(context.get(new ComponentRef<Supplier<TestComponent>>() {
             }).isPresent());
         }
 
+        @Test
+        void should_retrieve_all_bindings_of_type_as_list_in_registration_order() {
+            Dependency named = new Dependency() {
+            };
+            Dependency skywalker = new Dependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(Dependency.class, named, new NamedLiteral("named"));
+            config.bind(Dependency.class, skywalker, new SkywalkerLiteral());
+            config.bind(TestComponent.class, instance);
+            Context context = config.getContext();
+
+            assertEquals(List.of(dependency, named, skywalker), context.get(new ComponentRef<List<Dependency>>() {
+            }).get());
+            assertEquals(Set.of(dependency, named, skywalker), context.get(new ComponentRef<Set<Dependency>>() {
+            }).get());
+        }
+
+        @Test
+        void should_retrieve_empty_list_if_type_not_bound() {
+            Context context = config.getContext();
+
+            assertTrue(context.get(new ComponentRef<List<Dependency>>() {
+            }).get().isEmpty());
+        }
+
+        @Test
+        void should_inject_all_bindings_of_type_as_list() {
+            config.bind(Dependency.class, dependency, new NamedLiteral("first"));
+            config.bind(Dependency.class, Chained.class, new NamedLiteral("second"));
+            config.bind(TestComponent.class, Chain.class);
+            Context context = config.getContext();
+
+            List<Dependency> chain = ((Chain) context.get(ComponentRef.of(TestComponent.class)).get()).dependencies;
+            assertEquals(2, chain.size());
+            assertSame(dependency, chain.get(0));
+            assertTrue(chain.get(1) instanceof Chained);
+            assertThrows(UnsupportedOperationException.class, () -> chain.add(dependency));
+        }
+
+        @Test
+        void should_throw_exception_if_nested_container_is_not_deferred_list() {
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, NestedProviders.class);
+
+            assertThrows(IllegalComponentException.class, () -> config.getContext());
+        }
+
+        @Test
+        void should_throw_exception_if_list_holds_containers() {
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, ListOfProviders.class);
+
+            assertThrows(IllegalComponentException.class, () -> config.getContext());
+        }
+
+        @Test
+        void should_throw_exception_if_list_injection_is_qualified() {
+            config.bind(Dependency.class, dependency, new NamedLiteral("first"));
+            config.bind(TestComponent.class, QualifiedChain.class);
+
+            assertThrows(IllegalComponentException.class, () -> config.getContext());
+        }
+
+        @Test
+        void should_not_retrieve_qualified_list() throws Exception {
+            config.bind(Dependency.class, dependency, new NamedLiteral("first"));
+            Context context = config.getContext();
+
+            assertTrue(context.get(ComponentRef.of(QualifiedChain.class.getDeclaredField("dependencies").getGenericType(),
+                new NamedLiteral("first"))).isEmpty());
+        }
+
+        @Test
+        void should_defer_list_through_provider_even_if_it_holds_the_dependent() {
+            config.bind(Dependency.class, dependency);
+            config.bind(Dependency.class, DeferredChain.class, new NamedLiteral("deferred"));
+            Context context = config.getContext();
+
+            DeferredChain chain = (DeferredChain) context.get(ComponentRef.of(Dependency.class, new NamedLiteral("deferred"))).get();
+
+            assertEquals(2, chain.dependencies.get().size());
+            assertSame(dependency, chain.dependencies.get().get(0));
+            assertEquals(2, context.get(new ComponentRef<Lazy<Set<Dependency>>>() {
+            }).get().get().size());
+        }
+
+
+        @Test
+        void should_not_retrieve_component_bound_after_context_created() {
+            Context context = config.getContext();
+            config.bind(TestComponent.class, instance);
+
+            assertTrue(context.get(ComponentRef.of(TestComponent.class)).isEmpty());
+        }
+
+        @Test
+        void should_resolve_dependencies_from_the_context_component_retrieved_from() {
+            Dependency another = new Dependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(TestComponent.class, ConstructorInjection.class);
+            Context context = config.getContext();
+            config.bind(Dependency.class, another);
+            Context anotherContext = config.getContext();
+
+            assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(another, anotherContext.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+        }
+
+        static class Chained implements Dependency {
+        }
+
+        static class NestedProviders implements TestComponent {
+            @Inject
+            Provider<Provider<Dependency>> dependency;
+        }
+
+        static class ListOfProviders implements TestComponent {
+            @Inject
+            List<Provider<Dependency>> dependencies;
+        }
+
+        static class QualifiedChain implements TestComponent {
+            @Inject
+            @jakarta.inject.Named("first")
+            List<Dependency> dependencies;
+        }
+
+        static class DeferredChain implements Dependency {
+            @Inject
+            Provider<List<Dependency>> dependencies;
+        }
+
+        static class Chain implements TestComponent {
+            final List<Dependency> dependencies;
+
+            @Inject
+            public Chain(List<Dependency> dependencies) {
+                this.dependencies = dependencies;
+            }
+        }
+
+        static class CountedDependency implements Dependency {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public CountedDependency() {
+                constructed.incrementAndGet();
+            }
+        }
+
+        static class LazyInjection implements TestComponent {
+            @Inject
+            Lazy<Dependency> dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency.get();
+            }
+        }
+
+        static class ConstructorInjection implements TestComponent {
+
+            private Dependency dependency;
+
+            @Inject
+            public ConstructorInjection(Dependency dependency) {
+                this.dependency = dependency;
+            }
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        static class FieldInjection implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        static class MethodInjection implements TestComponent {
+            private Dependency dependency;
+
+            @Inject
+            void install(Dependency dependency) {
+                this.dependency = dependency;
+            }
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        @Nested
+        class WithQualifier {
+            @Test
+            void should_bind_instance_with_multi_qualifiers() {
+                config.bind(TestComponent.class, instance, new NamedLiteral("ChoseOne"), new SkywalkerLiteral());
+
+                Context context = config.getContext();
+                TestComponent choseOne = context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("ChoseOne"))).get();
+                TestComponent skywalker = context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get();
+
+                assertSame(instance, choseOne);
+                assertSame(instance, skywalker);
+            }
+
+            @Test
+            void should_bind_component_with_multi_qualifiers() {
+                config.bind(Dependency.class, dependency);
+                config.bind(InjectConstructor.class, InjectConstructor.class, new NamedLiteral("ChoseOne"), new SkywalkerLiteral());
+
+                Context context = config.getContext();
+                InjectConstructor choseOne = context.get(ComponentRef.of(InjectConstructor.class, new NamedLiteral("ChoseOne"))).get();
+                InjectConstructor skywalker = context.get(ComponentRef.of(InjectConstructor.class, new SkywalkerLiteral())).get();
+
+                assertSame(dependency, choseOne.dependency);
+                assertSame(dependency, skywalker.dependency);
+            }
+
+
+            @Test
+            void should_throw_exception_if_illegal_qualifier_given_to_instance() {
+                assertThrows(IllegalComponentException.class, () -> config.bind(TestComponent.class, instance, new TestLiteral()));
+            }
+
+            @Test
+            void should_throw_exception_if_illegal_qualifier_given_to_component() {
+                assertThrows(IllegalComponentException.class,
+                    () -> config.bind(InjectConstructor.class, InjectConstructor.class, new TestLiteral()));
+            }
+
+            @Test
+            void should_share_one_slot_between_qualifiers_of_one_binding() {
+                config.bind(Dependency.class, dependency);
+                config.bind(InjectConstructor.class, InjectConstructor.class, new NamedLiteral("ChoseOne"), new SkywalkerLiteral());
+
+                config.bind(QualifiedProviders.class, QualifiedProviders.class);
+
+                Context context = config.getContext();
+                QualifiedProviders providers = context.get(ComponentRef.of(QualifiedProviders.class)).get();
+
+                assertSame(providers.choseOne, providers.skywalker);
+                assertEquals(1, context.get(new ComponentRef<List<InjectConstructor>>() {
+                }).get().size());
+            }
+
+            static class QualifiedProviders {
+                @Inject
+                @jakarta.inject.Named("ChoseOne")
+                Provider<InjectConstructor> choseOne;
+                @Inject
+                @Skywalker
+                Provider<InjectConstructor> skywalker;
+            }
+
+            // TODO: 2023/3/4 Provider
+        }
+
+        @Nested
+        class WithScope {
+            @Test
+            void should_not_be_singleton_scope_by_default() {
+                config.bind(NotSingleton.class, NotSingleton.class);
+                Context context = config.getContext();
+                assertNotSame(context.get(ComponentRef.of(NotSingleton.class)), context.get(ComponentRef.of(NotSingleton.class)));
+            }
+
+            @Test
+            void should_bind_component_as_singleton_scoped() {
+                config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral());
+
+                Context context = config.getContext();
+
+                assertSame(context.get(ComponentRef.of(NotSingleton.class)).get(), context.get(ComponentRef.of(NotSingleton.class)).get());
+            }
+
+            @Test
+            void should_construct_singleton_exactly_once_under_concurrent_access() throws Exception {
+                config.bind(SlowSingleton.class, SlowSingleton.class);
+                Context context = config.getContext();
+                SlowSingleton.constructed.set(0);
+
+                int threads = 16;
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                CountDownLatch start = new CountDownLatch(1);
+                try {
+                    List<Future<SlowSingleton>> futures = new ArrayList<>();
+                    for (int i = 0; i < threads; i++) {
+                        futures.add(executor.submit(() -> {
+                            start.await();
+                            return context.get(ComponentRef.of(SlowSingleton.class)).get();
+                        }));
+                    }
+                    start.countDown();
+
+                    Set<SlowSingleton> instances = new HashSet<>();
+                    for (Future<SlowSingleton> future : futures) {
+                        instances.add(future.get(10, TimeUnit.SECONDS));
+                    }
+                    assertEquals(1, instances.size());
+                    assertEquals(1, SlowSingleton.constructed.get());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Test
+            void should_retrieve_scope_annotation_from_component() {
+                config.bind(Dependency.class, SingletonAnnotated.class);
+
+                Context context = config.getContext();
+                assertSame(context.get(ComponentRef.of(Dependency.class)).get(),
+                    context.get(ComponentRef.of(Dependency.class)).get());
+            }
+
+            @Test
+            void should_bind_component_as_customize_scope() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+
+                Context context = config.getContext();
+
+                List<NotSingleton> instances = IntStream.range(0, PooledProvider.DEFAULT_SIZE)
+                    .mapToObj(i -> context.get(ComponentRef.of(NotSingleton.class)).get()).toList();
+
+                assertEquals(PooledProvider.DEFAULT_SIZE, new HashSet<>(instances).size());
+                assertThrows(PoolExhaustedException.class, () -> context.get(ComponentRef.of(NotSingleton.class)));
+            }
+
+            @Test
+            void should_resolve_dependencies_of_provider_wrapped_by_scope_declaring_them_in_other_order() {
+                Dependency dependency = new Dependency() {
+                };
+                AnotherDependency another = new AnotherDependency() {
+                };
+                config.bind(Dependency.class, dependency);
+                config.bind(AnotherDependency.class, another);
+                config.scope(Pooled.class, scoped -> new ComponentProvider<Object>() {
+                    @Override
+                    public Object get(Context context) {
+                        return scoped.get(context);
+                    }
+
+                    @Override
+                    public List<ComponentRef<?>> getDependencies() {
+                        List<ComponentRef<?>> dependencies = new ArrayList<>(scoped.getDependencies());
+                        Collections.reverse(dependencies);
+                        return dependencies;
+                    }
+                });
+                config.bind(BothDependencies.class, BothDependencies.class, new PooledLiteral());
+
+                BothDependencies component = config.getContext().get(ComponentRef.of(BothDependencies.class)).get();
+
+                assertSame(dependency, component.dependency);
+                assertSame(another, component.another);
+            }
+
+            @Test
+            void should_reuse_pooled_instance_released_back_to_scope() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                Context context = config.getContext();
+
+                NotSingleton borrowed = context.get(ComponentRef.of(NotSingleton.class)).get();
+                context.release(ComponentRef.of(NotSingleton.class), borrowed);
+
+                assertSame(borrowed, context.get(ComponentRef.of(NotSingleton.class)).get());
+            }
+
+            @Test
+            void should_configure_pool_size_per_binding() {
+                config.scope(Pooled.class, new ScopeProvider() {
+                    @Override
+                    public ComponentProvider<?> create(ComponentProvider<?> provider) {
+                        return new PooledProvider<>(provider);
+                    }
+
+                    @Override
+                    public ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+                        return new PooledProvider<>(provider, ((Pooled) scope).size(), Duration.ZERO);
+                    }
+                });
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral(3));
+                Context context = config.getContext();
+
+                List<NotSingleton> instances =
+                    IntStream.range(0, 3).mapToObj(i -> context.get(ComponentRef.of(NotSingleton.class)).get()).toList();
+
+                assertEquals(3, new HashSet<>(instances).size());
+                assertThrows(PoolExhaustedException.class, () -> context.get(ComponentRef.of(NotSingleton.class)));
+            }
+
+            @Test
+            void should_wait_for_released_instance_if_pool_exhausted() throws Exception {
+                config.scope(Pooled.class, provider -> new PooledProvider<>(provider, 1, Duration.ofSeconds(10)));
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                Context context = config.getContext();
+                NotSingleton borrowed = context.get(ComponentRef.of(NotSingleton.class)).get();
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    Future<NotSingleton> waiting = executor.submit(() -> context.get(ComponentRef.of(NotSingleton.class)).get());
+                    context.release(ComponentRef.of(NotSingleton.class), borrowed);
+
+                    assertSame(borrowed, waiting.get(10, TimeUnit.SECONDS));
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Test
+            void should_throw_exception_if_pool_exhausted_after_timeout() {
+                config.scope(Pooled.class, provider -> new PooledProvider<>(provider, 1, Duration.ofMillis(10)));
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                Context context = config.getContext();
+                context.get(ComponentRef.of(NotSingleton.class));
+
+                PoolExhaustedException exception =
+                    assertThrows(PoolExhaustedException.class, () -> context.get(ComponentRef.of(NotSingleton.class)));
+                assertEquals(1, exception.getSize());
+            }
+
+            @Test
+            void should_collect_pool_statistics() {
+                PooledProvider<?>[] pool = new PooledProvider<?>[1];
+                config.scope(Pooled.class, provider -> pool[0] = new PooledProvider<>(provider));
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                Context context = config.getContext();
+
+                NotSingleton borrowed = context.get(ComponentRef.of(NotSingleton.class)).get();
+                context.release(ComponentRef.of(NotSingleton.class), borrowed);
+                context.get(ComponentRef.of(NotSingleton.class));
+
+                PooledProvider.Statistics statistics = pool[0].statistics();
+                assertEquals(1, statistics.created());
+                assertEquals(2, statistics.borrowed());
+                assertEquals(1, statistics.returned());
+                assertEquals(1, statistics.inUse());
+            }
+
+            @Test
+            void should_only_take_back_instances_lent_by_pool() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                Context context = config.getContext();
+                NotSingleton borrowed = context.get(ComponentRef.of(NotSingleton.class)).get();
+                context.release(ComponentRef.of(NotSingleton.class), borrowed);
+
+                assertThrows(IllegalArgumentException.class, () -> context.release(ComponentRef.of(NotSingleton.class), borrowed));
+                assertThrows(IllegalArgumentException.class,
+                    () -> context.release(ComponentRef.of(NotSingleton.class), new NotSingleton()));
+                IntStream.range(0, PooledProvider.DEFAULT_SIZE).forEach(i -> context.get(ComponentRef.of(NotSingleton.class)));
+                assertThrows(PoolExhaustedException.class, () -> context.get(ComponentRef.of(NotSingleton.class)));
+            }
+
+            @Test
+            void should_keep_pooled_instances_borrowed_by_dependents_until_dependents_released() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                config.bind(PooledDependent.class, PooledDependent.class);
+                Context context = config.getContext();
+
+                List<PooledDependent> dependents = IntStream.range(0, PooledProvider.DEFAULT_SIZE)
+                    .mapToObj(i -> context.get(ComponentRef.of(PooledDependent.class)).get()).toList();
+
+                assertEquals(PooledProvider.DEFAULT_SIZE, dependents.stream().map(d -> d.pooled).distinct().count());
+                assertThrows(PoolExhaustedException.class, () -> context.get(ComponentRef.of(PooledDependent.class)));
+
+                context.release(ComponentRef.of(PooledDependent.class), dependents.get(0));
+
+                assertSame(dependents.get(0).pooled, context.get(ComponentRef.of(PooledDependent.class)).get().pooled);
+            }
+
+            @Test
+            void should_give_back_pooled_instances_of_dependents_garbage_collected() throws Exception {
+                PooledProvider<?>[] pool = new PooledProvider<?>[1];
+                config.scope(Pooled.class, provider -> pool[0] = new PooledProvider<>(provider));
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                config.bind(PooledDependent.class, PooledDependent.class);
+                Context context = config.getContext();
+
+                IntStream.range(0, PooledProvider.DEFAULT_SIZE).forEach(i -> context.get(ComponentRef.of(PooledDependent.class)));
+
+                for (int i = 0; i < 50 && pool[0].statistics().inUse() > 0; i++) {
+                    System.gc();
+                    Thread.sleep(20);
+                }
+                assertEquals(0, pool[0].statistics().inUse());
+            }
+
+            @Test
+            void should_give_back_pooled_instances_held_by_dependents_when_context_closed() {
+                PooledProvider<?>[] pool = new PooledProvider<?>[1];
+                config.scope(Pooled.class, provider -> pool[0] = new PooledProvider<>(provider));
+                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+                config.bind(PooledDependent.class, PooledDependent.class);
+                Context context = config.getContext();
+                List<PooledDependent> dependents = IntStream.range(0, PooledProvider.DEFAULT_SIZE)
+                    .mapToObj(i -> context.get(ComponentRef.of(PooledDependent.class)).get()).toList();
+
+                context.close();
+
+                assertEquals(dependents.size(), pool[0].statistics().returned());
+            }
+
+            @Test
+            void should_bind_component_as_thread_scoped() throws Exception {
+                config.bind(PerThread.class, PerThread.class);
+                Context context = config.getContext();
+
+                PerThread current = context.get(ComponentRef.of(PerThread.class)).get();
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    PerThread other = executor.submit(() -> context.get(ComponentRef.of(PerThread.class)).get()).get();
+
+                    assertSame(current, context.get(ComponentRef.of(PerThread.class)).get());
+                    assertNotSame(current, other);
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            @Test
+            void should_not_keep_thread_scoped_instances_of_threads_gone() throws Exception {
+                ThreadScopedProvider<Object> provider = new ThreadScopedProvider<>(context -> new Object());
+                for (int i = 0; i < 1000; i++) {
+                    Thread thread = new Thread(() -> provider.get(null));
+                    thread.start();
+                    thread.join();
+                }
+
+                for (int i = 0; i < 50 && provider.threads() > 100; i++) {
+                    System.gc();
+                    Thread.sleep(20);
+                }
+                assertTrue(provider.threads() <= 100, provider.threads() + " threads still held");
+            }
+
+            @Test
+            void should_bind_component_as_request_scoped() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                PerRequest first;
+                try (RequestScope request = RequestScope.open()) {
+                    first = context.get(ComponentRef.of(PerRequest.class)).get();
+                    assertSame(first, context.get(ComponentRef.of(PerRequest.class)).get());
+                }
+                try (RequestScope request = RequestScope.open()) {
+                    assertNotSame(first, context.get(ComponentRef.of(PerRequest.class)).get());
+                }
+            }
+
+            @Test
+            void should_close_request_scoped_instances_with_request() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                PerRequest instance;
+                try (RequestScope request = RequestScope.open()) {
+                    instance = context.get(ComponentRef.of(PerRequest.class)).get();
+                    assertFalse(instance.closed);
+                }
+
+                assertTrue(instance.closed);
+            }
+
+            @Test
+            void should_throw_exception_if_no_request_open() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                ScopeNotActiveException exception =
+                    assertThrows(ScopeNotActiveException.class, () -> context.get(ComponentRef.of(PerRequest.class)));
+                assertEquals(RequestScoped.class, exception.getScope());
+            }
+
+            @Test
+            void should_restore_outer_request_when_nested_request_closed() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                try (RequestScope outer = RequestScope.open()) {
+                    PerRequest instance = context.get(ComponentRef.of(PerRequest.class)).get();
+                    try (RequestScope inner = RequestScope.open()) {
+                        assertNotSame(instance, context.get(ComponentRef.of(PerRequest.class)).get());
+                    }
+                    assertSame(instance, context.get(ComponentRef.of(PerRequest.class)).get());
+                }
+            }
+
+            @Test
+            void should_share_request_with_other_threads() throws Exception {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try (RequestScope request = RequestScope.open()) {
+                    PerRequest instance = context.get(ComponentRef.of(PerRequest.class)).get();
+
+                    assertSame(instance, executor.submit(() -> request.call(() -> context.get(ComponentRef.of(PerRequest.class)).get())).get());
+                    assertThrows(ExecutionException.class, () -> executor.submit(() -> context.get(ComponentRef.of(PerRequest.class))).get());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            @Test
+            void should_throw_exception_if_multi_scope_provider() {
+                assertThrows(IllegalComponentException.class,
+                    () -> config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
+            }
+
+            @Test
+            void should_throw_exception_if_multi_scope_annotated() {
+
+                assertThrows(IllegalComponentException.class, () -> config.bind(MultiScopeAnnotated.class, MultiScopeAnnotated.class));
+            }
+
+
+            @Test
+            void should_throw_exception_if_scope_undefined() {
+                assertThrows(IllegalComponentException.class,
+                    () -> config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral()));
+            }
+
+
+            @Singleton
+            @Pooled
+            static class MultiScopeAnnotated {
+            }
+
+            static class NotSingleton {
+
+            }
+
+            static class BothDependencies {
+                final Dependency dependency;
+                final AnotherDependency another;
+
+                @Inject
+                BothDependencies(Dependency dependency, AnotherDependency another) {
+                    this.dependency = dependency;
+                    this.another = another;
+                }
+            }
+
+            static class PooledDependent {
+                @Inject
+                NotSingleton pooled;
+            }
+
+            @ThreadScoped
+            static class PerThread {
+            }
+
+            @RequestScoped
+            static class PerRequest implements AutoCloseable {
+                boolean closed;
+
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            }
+
+            @Singleton
+            static class SingletonAnnotated implements Dependency {
+
+            }
+
+            @Singleton
+            static class SlowSingleton {
+                static final AtomicInteger constructed = new AtomicInteger();
+
+                public SlowSingleton() throws InterruptedException {
+                    constructed.incrementAndGet();
+                    Thread.sleep(20);
+                }
+            }
+
+            @Nested
+            class WithQualifier {
+                @Test
+                void should_not_be_singleton_scope_by_default() {
+                    config.bind(NotSingleton.class, NotSingleton.class, new SkywalkerLiteral());
+                    Context context = config.getContext();
+                    assertNotSame(context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())),
+                        context.get(ComponentRef.of(
+                            NotSingleton.class, new SkywalkerLiteral())));
+                }
+
+                @Test
+                void should_bind_component_as_singleton_scoped() {
+                    config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral(), new SkywalkerLiteral());
+
+                    Context context = config.getContext();
+
+                    assertSame(context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())).get(),
+                        context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())).get());
+                }
+
+                @Test
+                void should_retrieve_scope_annotation_from_component() {
+                    config.bind(Dependency.class, SingletonAnnotated.class, new SkywalkerLiteral());
+
+                    Context context = config.getContext();
+                    assertSame(context.get(ComponentRef.of(Dependency.class, new SkywalkerLiteral())).get(),
+                        context.get(ComponentRef.of(Dependency.class, new SkywalkerLiteral())).get());
+                }
+
+            }
+        }
+
+        @Nested
+        class WithEagerSingletons {
+            List<Class<?>> constructed = Collections.synchronizedList(new ArrayList<>());
+
+            @BeforeEach
+            public void before() {
+                config.bind(Constructed.class, constructed::add);
+            }
+
+            @Test
+            void should_build_singletons_before_context_returned() {
+                config.bind(TestComponent.class, EagerComponent.class);
+                config.bind(Dependency.class, EagerDependency.class);
+                Map<Component, Duration> reported = new ConcurrentHashMap<>();
+                config.eager(ForkJoinPool.commonPool(), reported::put);
+
+                config.getContext();
+
+                assertEquals(List.of(EagerDependency.class, EagerComponent.class), constructed);
+                assertEquals(Set.of(new Component(TestComponent.class, null), new Component(Dependency.class, null)), reported.keySet());
+            }
+
+            @Test
+            void should_not_build_singletons_before_context_returned_by_default() {
+                config.bind(Dependency.class, EagerDependency.class);
+
+                Context context = config.getContext();
+                assertTrue(constructed.isEmpty());
+
+                context.get(ComponentRef.of(Dependency.class));
+                assertEquals(List.of(EagerDependency.class), constructed);
+            }
+
+            @Test
+            void should_only_build_singletons_eagerly() {
+                config.bind(TestComponent.class, EagerComponent.class);
+                config.bind(Dependency.class, EagerDependency.class);
+                config.bind(AnotherDependency.class, NotEager.class);
+                config.eager(ForkJoinPool.commonPool());
+
+                config.getContext();
+
+                assertFalse(constructed.contains(NotEager.class));
+            }
+
+            interface Constructed {
+                void add(Class<?> component);
+            }
+
+            @Singleton
+            static class EagerDependency implements Dependency {
+                @Inject
+                public EagerDependency(Constructed constructed) {
+                    constructed.add(EagerDependency.class);
+                }
+            }
+
+            @Singleton
+            static class EagerComponent implements TestComponent {
+                @Inject
+                public EagerComponent(Dependency dependency, Constructed constructed) {
+                    constructed.add(EagerComponent.class);
+                }
+            }
+
+            static class NotEager implements AnotherDependency {
+                @Inject
+                public NotEager(Constructed constructed) {
+                    constructed.add(NotEager.class);
+                }
+            }
+        }
+
+        @Nested
+        class WithParent {
+            Dependency overridden = new Dependency() {
+            };
+
+            @Test
+            void should_retrieve_component_bound_in_parent() {
+                config.bind(Dependency.class, dependency);
+                ContextConfig child = new ContextConfig(config.getContext());
+
+                assertSame(dependency, child.getContext().get(ComponentRef.of(Dependency.class)).get());
+            }
+
+            @Test
+            void should_override_parent_binding_for_components_bound_in_child() {
+                config.bind(Dependency.class, dependency);
+                Context parent = config.getContext();
+                ContextConfig child = new ContextConfig(parent);
+                child.bind(Dependency.class, overridden);
+                child.bind(TestComponent.class, ConstructorInjection.class);
+
+                assertSame(overridden, child.getContext().get(ComponentRef.of(TestComponent.class)).get().dependency());
+                assertSame(dependency, parent.get(ComponentRef.of(Dependency.class)).get());
+            }
+
+            @Test
+            void should_resolve_components_bound_in_parent_by_parent() {
+                config.bind(Dependency.class, dependency);
+                config.bind(TestComponent.class, ConstructorInjection.class);
+                ContextConfig child = new ContextConfig(config.getContext());
+                child.bind(Dependency.class, overridden);
+
+                assertSame(dependency, child.getContext().get(ComponentRef.of(TestComponent.class)).get().dependency());
+            }
+
+            @Test
+            void should_share_parent_singletons() {
+                config.bind(Dependency.class, SingletonDependency.class);
+                Context parent = config.getContext();
+                Context child = new ContextConfig(parent).getContext();
+
+                assertSame(parent.get(ComponentRef.of(Dependency.class)).get(), child.get(ComponentRef.of(Dependency.class)).get());
+                assertSame(parent.get(new ComponentRef<Provider<Dependency>>() {
+                }).get().get(), child.get(new ComponentRef<Provider<Dependency>>() {
+                }).get().get());
+            }
+
+            @Test
+            void should_throw_exception_if_dependency_not_found_in_child_nor_parent() {
+                ContextConfig child = new ContextConfig(config.getContext());
+                child.bind(TestComponent.class, ConstructorInjection.class);
+
+                DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, child::getContext);
+                assertEquals(Dependency.class, exception.getDependency().type());
+            }
+
+            @Test
+            void should_retrieve_parent_bindings_not_overridden_in_list() {
+                config.bind(Dependency.class, dependency);
+                Dependency named = new Dependency() {
+                };
+                config.bind(Dependency.class, named, new NamedLiteral("named"));
+                ContextConfig child = new ContextConfig(config.getContext());
+                child.bind(Dependency.class, overridden);
+
+                assertEquals(List.of(named, overridden), child.getContext().get(new ComponentRef<List<Dependency>>() {
+                }).get());
+            }
+
+            @Test
+            void should_throw_exception_if_parent_not_created_by_config() {
+                assertThrows(IllegalArgumentException.class, () -> new ContextConfig(new Context() {
+                    @Override
+                    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+                        return Optional.empty();
+                    }
+                }));
+            }
+
+            @Singleton
+            static class SingletonDependency implements Dependency {
+            }
+        }
+
+        @Nested
+        class WithMonitor {
+            InMemoryMonitor monitor = new InMemoryMonitor();
 
-        static class ConstructorInjection implements TestComponent {
+            @BeforeEach
+            public void before() {
+                config.monitor(monitor);
+            }
 
-            private Dependency dependency;
+            @Test
+            void should_count_resolutions_and_depth() {
+                config.bind(Dependency.class, dependency);
+                config.bind(TestComponent.class, ConstructorInjection.class);
+                Context context = config.getContext();
 
-            @Inject
-            public ConstructorInjection(Dependency dependency) {
-                this.dependency = dependency;
+                context.get(ComponentRef.of(TestComponent.class));
+                context.get(ComponentRef.of(TestComponent.class));
+
+                assertEquals(2, monitor.resolutions(new Component(TestComponent.class, null)));
+                assertEquals(2, monitor.resolutions(new Component(Dependency.class, null)));
+                assertEquals(1, monitor.maxDepth());
             }
 
-            @Override
-            public Dependency dependency() {
-                return dependency;
+            @Test
+            void should_record_construction_latency() {
+                config.bind(Dependency.class, dependency);
+                config.bind(TestComponent.class, ConstructorInjection.class);
+                Context context = config.getContext();
+
+                context.get(ComponentRef.of(TestComponent.class));
+                context.get(new ComponentRef<Provider<TestComponent>>() {
+                }).get().get();
+
+                InMemoryMonitor.Histogram constructions = monitor.constructions(ConstructorInjection.class);
+                assertEquals(2, constructions.count());
+                assertTrue(constructions.percentile(0.99).compareTo(constructions.mean()) >= 0);
             }
-        }
 
-        static class FieldInjection implements TestComponent {
-            @Inject
-            Dependency dependency;
+            @Test
+            void should_record_singleton_hits_and_misses() {
+                config.bind(Dependency.class, SingletonDependency.class);
+                Context context = config.getContext();
 
-            @Override
-            public Dependency dependency() {
-                return dependency;
+                IntStream.range(0, 3).forEach(i -> context.get(ComponentRef.of(Dependency.class)));
+
+                assertEquals(1, monitor.misses(ContainerMonitor.Scope.SINGLETON));
+                assertEquals(2, monitor.hits(ContainerMonitor.Scope.SINGLETON));
             }
-        }
 
-        static class MethodInjection implements TestComponent {
-            private Dependency dependency;
+            @Test
+            void should_record_pooled_hits_and_misses() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(Dependency.class, PooledDependency.class, new PooledLiteral());
+                Context context = config.getContext();
 
-            @Inject
-            void install(Dependency dependency) {
-                this.dependency = dependency;
+                Dependency borrowed = context.get(ComponentRef.of(Dependency.class)).get();
+                context.release(ComponentRef.of(Dependency.class), borrowed);
+                context.get(ComponentRef.of(Dependency.class));
+
+                assertEquals(0.5, monitor.hitRate(ContainerMonitor.Scope.POOLED));
             }
 
-            @Override
-            public Dependency dependency() {
-                return dependency;
+            @Test
+            void should_resolve_components_with_jfr_monitor() {
+                config.monitor(new JfrMonitor());
+                config.bind(Dependency.class, SingletonDependency.class);
+                config.bind(TestComponent.class, ConstructorInjection.class);
+                Context context = config.getContext();
+
+                assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
+            }
+
+            @Singleton
+            static class SingletonDependency implements Dependency {
+            }
+
+            static class PooledDependency implements Dependency {
             }
         }
 
         @Nested
-        class WithQualifier {
+        class WithConcurrentResolution {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            @AfterEach
+            public void after() {
+                executor.shutdownNow();
+            }
+
             @Test
-            void should_bind_instance_with_multi_qualifiers() {
-                config.bind(TestComponent.class, instance, new NamedLiteral("ChoseOne"), new SkywalkerLiteral());
+            void should_resolve_constructor_dependencies_side_by_side() {
+                Rendezvous.latch = new CountDownLatch(2);
+                config.concurrent(executor);
+                config.bind(Dependency.class, RendezvousDependency.class);
+                config.bind(AnotherDependency.class, AnotherRendezvousDependency.class);
+                config.bind(TestComponent.class, WideComponent.class);
+                Context context = config.getContext();
+
+                assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
+            }
 
+            @Test
+            void should_construct_shared_singleton_once() {
+                Shared.constructed.set(0);
+                config.concurrent(executor);
+                config.bind(Shared.class, Shared.class);
+                config.bind(Dependency.class, SharingDependency.class);
+                config.bind(AnotherDependency.class, AnotherSharingDependency.class);
+                config.bind(TestComponent.class, WideComponent.class);
                 Context context = config.getContext();
-                TestComponent choseOne = context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("ChoseOne"))).get();
-                TestComponent skywalker = context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get();
 
-                assertSame(instance, choseOne);
-                assertSame(instance, skywalker);
+                WideComponent component = (WideComponent) context.get(ComponentRef.of(TestComponent.class)).get();
+
+                assertEquals(1, Shared.constructed.get());
+                assertSame(((SharingDependency) component.dependency).shared, ((AnotherSharingDependency) component.another).shared);
             }
 
             @Test
-            void should_bind_component_with_multi_qualifiers() {
+            void should_resolve_on_constructing_thread_if_executor_never_runs_forks() {
+                config.concurrent(command -> {
+                });
                 config.bind(Dependency.class, dependency);
-                config.bind(InjectConstructor.class, InjectConstructor.class, new NamedLiteral("ChoseOne"), new SkywalkerLiteral());
+                config.bind(AnotherDependency.class, new AnotherDependency() {
+                });
+                config.bind(TestComponent.class, WideComponent.class);
+                Context context = config.getContext();
+
+                assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            }
 
+            @Test
+            void should_carry_request_into_forks() {
+                config.concurrent(executor);
+                config.bind(Dependency.class, RequestDependency.class);
+                config.bind(AnotherDependency.class, AnotherRequestDependency.class);
+                config.bind(TestComponent.class, WideComponent.class);
                 Context context = config.getContext();
-                InjectConstructor choseOne = context.get(ComponentRef.of(InjectConstructor.class, new NamedLiteral("ChoseOne"))).get();
-                InjectConstructor skywalker = context.get(ComponentRef.of(InjectConstructor.class, new SkywalkerLiteral())).get();
 
-                assertSame(dependency, choseOne.dependency);
-                assertSame(dependency, skywalker.dependency);
+                try (RequestScope request = RequestScope.open()) {
+                    assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
+                }
             }
 
+            @Test
+            void should_carry_thread_scope_into_forks() {
+                Rendezvous.latch = new CountDownLatch(2);
+                config.concurrent(executor);
+                config.bind(Scoped.class, Scoped.class);
+                config.bind(Dependency.class, ScopedRendezvousDependency.class);
+                config.bind(AnotherDependency.class, AnotherScopedRendezvousDependency.class);
+                config.bind(TestComponent.class, WideComponent.class);
+                Context context = config.getContext();
+
+                WideComponent component = (WideComponent) context.get(ComponentRef.of(TestComponent.class)).get();
+
+                Scoped current = context.get(ComponentRef.of(Scoped.class)).get();
+                assertSame(current, ((ScopedRendezvousDependency) component.dependency).scoped);
+                assertSame(current, ((AnotherScopedRendezvousDependency) component.another).scoped);
+            }
 
             @Test
-            void should_throw_exception_if_illegal_qualifier_given_to_instance() {
-                assertThrows(IllegalComponentException.class, () -> config.bind(TestComponent.class, instance, new TestLiteral()));
+            void should_resolve_fork_rejected_by_executor_on_constructing_thread() {
+                config.concurrent(command -> {
+                    throw new RejectedExecutionException();
+                });
+                config.bind(Dependency.class, dependency);
+                config.bind(AnotherDependency.class, new AnotherDependency() {
+                });
+                config.bind(TestComponent.class, WideComponent.class);
+                Context context = config.getContext();
+
+                assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
             }
 
             @Test
-            void should_throw_exception_if_illegal_qualifier_given_to_component() {
-                assertThrows(IllegalComponentException.class,
-                    () -> config.bind(InjectConstructor.class, InjectConstructor.class, new TestLiteral()));
+            void should_rethrow_exception_of_fork() {
+                config.concurrent(executor);
+                config.bind(Dependency.class, dependency);
+                config.bind(AnotherDependency.class, FailingDependency.class);
+                config.bind(TestComponent.class, WideComponent.class);
+                Context context = config.getContext();
+
+                assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
             }
 
-            // TODO: 2023/3/4 Provider
+            static class WideComponent implements TestComponent {
+                final Dependency dependency;
+                final AnotherDependency another;
+
+                @Inject
+                public WideComponent(Dependency dependency, AnotherDependency another) {
+                    this.dependency = dependency;
+                    this.another = another;
+                }
+
+                @Override
+                public Dependency dependency() {
+                    return dependency;
+                }
+            }
+
+            static class Rendezvous {
+                static CountDownLatch latch;
+
+                Rendezvous() {
+                    latch.countDown();
+                    try {
+                        if (!latch.await(5, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException("dependencies not resolved side by side");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+
+            static class RendezvousDependency extends Rendezvous implements Dependency {
+            }
+
+            @ThreadScoped
+            static class Scoped {
+            }
+
+            static class ScopedRendezvousDependency extends Rendezvous implements Dependency {
+                @Inject
+                Scoped scoped;
+            }
+
+            static class AnotherScopedRendezvousDependency extends Rendezvous implements AnotherDependency {
+                @Inject
+                Scoped scoped;
+            }
+
+            static class AnotherRendezvousDependency extends Rendezvous implements AnotherDependency {
+            }
+
+            @Singleton
+            static class Shared {
+                static final AtomicInteger constructed = new AtomicInteger();
+
+                public Shared() throws InterruptedException {
+                    constructed.incrementAndGet();
+                    Thread.sleep(20);
+                }
+            }
+
+            static class SharingDependency implements Dependency {
+                @Inject
+                Shared shared;
+            }
+
+            static class AnotherSharingDependency implements AnotherDependency {
+                @Inject
+                Shared shared;
+            }
+
+            @RequestScoped
+            static class RequestDependency implements Dependency {
+            }
+
+            @RequestScoped
+            static class AnotherRequestDependency implements AnotherDependency {
+            }
+
+            static class FailingDependency implements AnotherDependency {
+                public FailingDependency() {
+                    throw new IllegalStateException();
+                }
+            }
         }
 
         @Nested
-        class WithScope {
+        class WithDisposal {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            @BeforeEach
+            public void before() {
+                Closing.closed.clear();
+            }
+
+            @AfterEach
+            public void after() {
+                executor.shutdownNow();
+            }
+
             @Test
-            void should_not_be_singleton_scope_by_default() {
-                config.bind(NotSingleton.class, NotSingleton.class);
+            void should_close_singletons_after_their_dependents() {
+                config.bind(Dependency.class, ClosingDependency.class);
+                config.bind(TestComponent.class, ClosingComponent.class);
                 Context context = config.getContext();
-                assertNotSame(context.get(ComponentRef.of(NotSingleton.class)), context.get(ComponentRef.of(NotSingleton.class)));
+                TestComponent component = context.get(ComponentRef.of(TestComponent.class)).get();
+
+                context.close();
+
+                assertEquals(List.of(component, component.dependency()), Closing.closed);
             }
 
             @Test
-            void should_bind_component_as_singleton_scoped() {
-                config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral());
-
+            void should_close_singletons_after_dependents_holding_them_through_provider() {
+                config.bind(Dependency.class, ClosingDependency.class);
+                config.bind(TestComponent.class, ProvidingComponent.class);
                 Context context = config.getContext();
+                TestComponent component = context.get(ComponentRef.of(TestComponent.class)).get();
+                Dependency dependency = component.dependency();
 
-                assertSame(context.get(ComponentRef.of(NotSingleton.class)).get(), context.get(ComponentRef.of(NotSingleton.class)).get());
+                context.close();
+
+                assertEquals(List.of(component, dependency), Closing.closed);
             }
 
             @Test
-            void should_retrieve_scope_annotation_from_component() {
-                config.bind(Dependency.class, SingletonAnnotated.class);
+            void should_close_idle_pooled_instances_and_released_ones_after_close() {
+                config.scope(Pooled.class, PooledProvider::new);
+                config.bind(PooledResource.class, PooledResource.class);
+                Context context = config.getContext();
+                PooledResource idle = context.get(ComponentRef.of(PooledResource.class)).get();
+                PooledResource borrowed = context.get(ComponentRef.of(PooledResource.class)).get();
+                context.release(ComponentRef.of(PooledResource.class), idle);
+
+                context.close();
+                assertEquals(List.of(idle), Closing.closed);
 
+                context.release(ComponentRef.of(PooledResource.class), borrowed);
+                assertEquals(List.of(idle, borrowed), Closing.closed);
+            }
+
+            @Test
+            void should_close_independent_instances_side_by_side() {
+                RendezvousOnClose.latch = new CountDownLatch(2);
+                config.disposal(executor, Duration.ofSeconds(5));
+                config.bind(Dependency.class, RendezvousDependency.class);
+                config.bind(AnotherDependency.class, AnotherRendezvousDependency.class);
                 Context context = config.getContext();
-                assertSame(context.get(ComponentRef.of(Dependency.class)).get(),
-                    context.get(ComponentRef.of(Dependency.class)).get());
+                context.get(ComponentRef.of(Dependency.class)).get();
+                context.get(ComponentRef.of(AnotherDependency.class)).get();
+
+                context.close();
+
+                assertEquals(2, Closing.closed.size());
             }
 
             @Test
-            void should_bind_component_as_customize_scope() {
-                config.scope(Pooled.class, PooledProvider::new);
-                config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral());
+            void should_throw_exception_if_disposal_times_out() {
+                RendezvousOnClose.latch = new CountDownLatch(2);
+                config.disposal(executor, Duration.ofMillis(10));
+                config.bind(Dependency.class, RendezvousDependency.class);
+                Context context = config.getContext();
+                context.get(ComponentRef.of(Dependency.class)).get();
+
+                try {
+                    assertThrows(DisposalException.class, context::close);
+                } finally {
+                    RendezvousOnClose.latch.countDown();
+                }
+            }
 
+            @Test
+            void should_throw_exception_with_failures_of_instances() {
+                config.bind(Dependency.class, FailingOnClose.class);
                 Context context = config.getContext();
+                context.get(ComponentRef.of(Dependency.class)).get();
 
-                List<NotSingleton> instances =
-                    IntStream.range(0, 5).mapToObj(i -> context.get(ComponentRef.of(NotSingleton.class)).get()).toList();
+                DisposalException exception = assertThrows(DisposalException.class, context::close);
 
-                assertEquals(PooledProvider.MAX, new HashSet<>(instances).size());
+                assertEquals(1, exception.getSuppressed().length);
             }
 
             @Test
-            void should_throw_exception_if_multi_scope_provider() {
-                assertThrows(IllegalComponentException.class,
-                    () -> config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
+            void should_dispose_only_once() {
+                config.bind(Dependency.class, ClosingDependency.class);
+                Context context = config.getContext();
+                context.get(ComponentRef.of(Dependency.class)).get();
+
+                context.close();
+                context.close();
+
+                assertEquals(1, Closing.closed.size());
+                assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(Dependency.class)));
             }
 
             @Test
-            void should_throw_exception_if_multi_scope_annotated() {
+            void should_close_thread_scoped_instances_of_every_thread() throws Exception {
+                config.bind(PerThreadResource.class, PerThreadResource.class);
+                Context context = config.getContext();
+                PerThreadResource current = context.get(ComponentRef.of(PerThreadResource.class)).get();
+                PerThreadResource other = executor.submit(() -> context.get(ComponentRef.of(PerThreadResource.class)).get())
+                    .get(5, TimeUnit.SECONDS);
 
-                assertThrows(IllegalComponentException.class, () -> config.bind(MultiScopeAnnotated.class, MultiScopeAnnotated.class));
-            }
+                context.close();
 
+                assertEquals(Set.of(current, other), new HashSet<>(Closing.closed));
+                assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(PerThreadResource.class)));
+            }
 
             @Test
-            void should_throw_exception_if_scope_undefined() {
-                assertThrows(IllegalComponentException.class,
-                    () -> config.bind(NotSingleton.class, NotSingleton.class, new PooledLiteral()));
+            void should_not_close_bound_instance() {
+                ClosingDependency bound = new ClosingDependency();
+                config.bind(Dependency.class, bound);
+                Context context = config.getContext();
+
+                context.close();
+
+                assertTrue(Closing.closed.isEmpty());
             }
 
+            static class Closing implements AutoCloseable {
+                static final List<Object> closed = Collections.synchronizedList(new ArrayList<>());
+
+                @Override
+                public void close() throws Exception {
+                    closed.add(this);
+                }
+            }
 
             @Singleton
-            @Pooled
-            static class MultiScopeAnnotated {
+            static class ClosingDependency extends Closing implements Dependency {
             }
 
-            static class NotSingleton {
+            @Singleton
+            static class ClosingComponent extends Closing implements TestComponent {
+                @Inject
+                Dependency dependency;
 
+                @Override
+                public Dependency dependency() {
+                    return dependency;
+                }
             }
 
             @Singleton
-            static class SingletonAnnotated implements Dependency {
+            static class ProvidingComponent extends Closing implements TestComponent {
+                @Inject
+                Provider<Dependency> dependency;
 
+                @Override
+                public Dependency dependency() {
+                    return dependency.get();
+                }
             }
 
-            @Nested
-            class WithQualifier {
-                @Test
-                void should_not_be_singleton_scope_by_default() {
-                    config.bind(NotSingleton.class, NotSingleton.class, new SkywalkerLiteral());
-                    Context context = config.getContext();
-                    assertNotSame(context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())),
-                        context.get(ComponentRef.of(
-                            NotSingleton.class, new SkywalkerLiteral())));
-                }
+            @Pooled
+            static class PooledResource extends Closing {
+            }
 
-                @Test
-                void should_bind_component_as_singleton_scoped() {
-                    config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral(), new SkywalkerLiteral());
+            @ThreadScoped
+            static class PerThreadResource extends Closing {
+            }
 
-                    Context context = config.getContext();
+            static class RendezvousOnClose extends Closing {
+                static CountDownLatch latch;
 
-                    assertSame(context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())).get(),
-                        context.get(ComponentRef.of(NotSingleton.class, new SkywalkerLiteral())).get());
+                @Override
+                public void close() throws Exception {
+                    latch.countDown();
+                    if (!latch.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("instances not closed side by side");
+                    }
+                    super.close();
                 }
+            }
 
-                @Test
-                void should_retrieve_scope_annotation_from_component() {
-                    config.bind(Dependency.class, SingletonAnnotated.class, new SkywalkerLiteral());
+            @Singleton
+            static class RendezvousDependency extends RendezvousOnClose implements Dependency {
+            }
 
-                    Context context = config.getContext();
-                    assertSame(context.get(ComponentRef.of(Dependency.class, new SkywalkerLiteral())).get(),
-                        context.get(ComponentRef.of(Dependency.class, new SkywalkerLiteral())).get());
-                }
+            @Singleton
+            static class AnotherRendezvousDependency extends RendezvousOnClose implements AnotherDependency {
+            }
 
+            @Singleton
+            static class FailingOnClose implements Dependency, AutoCloseable {
+                @Override
+                public void close() {
+                    throw new IllegalStateException();
+                }
             }
         }
 
@@ -405,6 +1630,26 @@ public class ContextTest {
             assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
         }
 
+        @Test
+        void should_throw_exception_if_cyclic_dependency_via_list() {
+            config.bind(TestComponent.class, CyclicComponentInjectConstructor.class);
+            config.bind(Dependency.class, CyclicDependencyListField.class, new NamedLiteral("list"));
+            config.bind(Dependency.class, CyclicDependencyInjectField.class);
+
+            CyclicDependenciesFoundException exception = assertThrows(CyclicDependenciesFoundException.class, () -> config.getContext());
+
+            assertTrue(Arrays.asList(exception.getComponents()).contains(TestComponent.class));
+        }
+
+        @Test
+        void should_not_throw_exception_if_cyclic_dependency_via_lazy() {
+            config.bind(TestComponent.class, CyclicComponentInjectConstructor.class);
+            config.bind(Dependency.class, CyclicDependencyLazyField.class);
+
+            Context context = config.getContext();
+            assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
+        }
+
 
         // TODO: 2023/3/6 cyclic dependencies with scope
 
@@ -443,6 +1688,16 @@ public class ContextTest {
             }
         }
 
+        static class CyclicDependencyListField implements Dependency {
+            @Inject
+            List<TestComponent> components;
+        }
+
+        static class CyclicDependencyLazyField implements Dependency {
+            @Inject
+            Lazy<TestComponent> component;
+        }
+
         static class CyclicDependencyInjectField implements Dependency {
             @Inject
             TestComponent component;
@@ -0,0 +1,85 @@
+package com.time.tdd.di.container;
+
+import com.time.tdd.di.container.exceptions.CyclicDependenciesFoundException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XuJian
+ * @date 2023-03-16 21:40
+ **/
+public class DependencyGraphTest {
+    private final Map<Component, ComponentProvider<?>> components = new HashMap<>();
+
+    private static Component component(int index) {
+        return new Component(Dependency.class, new NamedLiteral(String.valueOf(index)));
+    }
+
+    private void bind(int index, int... dependencies) {
+        List<ComponentRef<?>> refs = Arrays.stream(dependencies)
+            .<ComponentRef<?>>mapToObj(d -> ComponentRef.of(Dependency.class, new NamedLiteral(String.valueOf(d)))).toList();
+        components.put(component(index), new ComponentProvider<Object>() {
+            @Override
+            public Object get(Context context) {
+                return null;
+            }
+
+            @Override
+            public List<ComponentRef<?>> getDependencies() {
+                return refs;
+            }
+        });
+    }
+
+    @Test
+    void should_validate_deep_dependency_chain_without_recursion() {
+        int depth = 100_000;
+        for (int i = 0; i < depth; i++) {
+            bind(i, i + 1);
+        }
+        bind(depth);
+
+        List<Component> order = DependencyGraph.sort(components);
+
+        assertEquals(depth + 1, order.size());
+        assertEquals(component(depth), order.get(0));
+        assertEquals(component(0), order.get(depth));
+    }
+
+    @Test
+    void should_sort_dependencies_before_dependents_in_diamonds() {
+        int layers = 200;
+        for (int layer = 0; layer < layers; layer++) {
+            bind(layer * 2, layer * 2 + 2, layer * 2 + 3);
+            bind(layer * 2 + 1, layer * 2 + 2, layer * 2 + 3);
+        }
+        bind(layers * 2);
+        bind(layers * 2 + 1);
+
+        List<Component> order = DependencyGraph.sort(components);
+
+        for (int layer = 0; layer < layers; layer++) {
+            assertTrue(order.indexOf(component(layer * 2)) > order.indexOf(component(layer * 2 + 2)));
+            assertTrue(order.indexOf(component(layer * 2 + 1)) > order.indexOf(component(layer * 2 + 3)));
+        }
+    }
+
+    @Test
+    void should_only_report_components_on_the_cycle() {
+        bind(0, 1);
+        bind(1, 2);
+        bind(2, 3);
+        bind(3, 1);
+
+        CyclicDependenciesFoundException exception =
+            assertThrows(CyclicDependenciesFoundException.class, () -> DependencyGraph.sort(components));
+
+        assertEquals(3, exception.getComponents().length);
+    }
+}
@@ -0,0 +1,180 @@
+package com.time.tdd.di.container;
+
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author XuJian
+ * @date 2023-03-21 11:30
+ **/
+public class GraphSnapshotTest {
+    private Path directory;
+    private Path file;
+    private final Dependency dependency = new Dependency() {
+    };
+
+    @BeforeEach
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("graph-snapshot");
+        file = directory.resolve("graph.bin");
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory.resolve("blocked"));
+        Files.deleteIfExists(directory);
+    }
+
+    private ContextConfig config() {
+        ContextConfig config = new ContextConfig();
+        config.snapshot(file);
+        config.bind(Dependency.class, dependency);
+        config.bind(TestComponent.class, Service.class);
+        return config;
+    }
+
+    @Test
+    void should_write_snapshot_when_context_created() {
+        config().getContext();
+
+        GraphSnapshot snapshot = GraphSnapshot.read(file);
+        assertNotNull(snapshot);
+        assertEquals(InjectionMetadata.of(Service.class).dependencies(), snapshot.restore(Service.class).dependencies());
+    }
+
+    @Test
+    void should_resolve_components_with_restored_inject_points() {
+        config().getContext();
+
+        Service service = (Service) config().getContext().get(ComponentRef.of(TestComponent.class)).get();
+
+        assertSame(dependency, service.dependency());
+        assertSame(dependency, service.field);
+        assertSame(dependency, service.method);
+        assertSame(dependency, service.inherited);
+    }
+
+    @Test
+    void should_restore_order_of_snapshotted_bindings() {
+        ContextConfig config = config();
+        config.getContext();
+        GraphSnapshot snapshot = GraphSnapshot.read(file);
+
+        List<Component> order = snapshot.order(configuredComponents(), configuredBindings(Service.class, null));
+
+        assertEquals(List.of(new Component(Dependency.class, null), new Component(TestComponent.class, null)), order);
+    }
+
+    @Test
+    void should_not_restore_order_if_bindings_changed() {
+        config().getContext();
+        GraphSnapshot snapshot = GraphSnapshot.read(file);
+
+        assertNull(snapshot.order(configuredComponents(), configuredBindings(AnotherService.class, null)));
+        assertNull(snapshot.order(configuredComponents(), configuredBindings(Service.class, new SingletonLiteral())));
+    }
+
+    @Test
+    void should_rebuild_unreadable_snapshot() throws Exception {
+        Files.write(file, new byte[] {1, 2, 3});
+        assertNull(GraphSnapshot.read(file));
+
+        config().getContext();
+
+        assertNotNull(GraphSnapshot.read(file));
+    }
+
+    @Test
+    void should_report_snapshot_not_written_to_monitor() throws Exception {
+        Path blocked = Files.createFile(directory.resolve("blocked"));
+        ContextConfig config = new ContextConfig();
+        InMemoryMonitor monitor = new InMemoryMonitor();
+        config.monitor(monitor);
+        config.snapshot(blocked.resolve("graph.bin"));
+        config.bind(Dependency.class, dependency);
+
+        config.getContext();
+
+        assertEquals(1, monitor.snapshotFailures().size());
+    }
+
+    @Test
+    void should_share_restored_inject_points_with_scanned_ones() {
+        config().getContext();
+
+        assertSame(InjectionMetadata.of(Service.class), GraphSnapshot.read(file).restore(Service.class));
+    }
+
+    @Test
+    void should_describe_annotations_by_type_and_member_values() throws Exception {
+        Annotation named = Qualified.class.getDeclaredField("dependency").getAnnotation(Named.class);
+
+        assertEquals("@jakarta.inject.Named(value=\"one\")", GraphSnapshot.describe(named));
+        assertEquals(GraphSnapshot.describe(named), GraphSnapshot.describe(new NamedLiteral("one")));
+        assertEquals(new GraphSnapshot.Binding(Service.class, AnotherService.class.getAnnotation(Singleton.class)).scopeName(),
+            new GraphSnapshot.Binding(Service.class, new SingletonLiteral()).scopeName());
+    }
+
+    private static Map<Component, ComponentProvider<?>> configuredComponents() {
+        Map<Component, ComponentProvider<?>> components = new LinkedHashMap<>();
+        components.put(new Component(TestComponent.class, null), context -> null);
+        components.put(new Component(Dependency.class, null), context -> null);
+        return components;
+    }
+
+    private static Map<Component, GraphSnapshot.Binding> configuredBindings(Class<?> service, Annotation scope) {
+        return Map.of(new Component(TestComponent.class, null), new GraphSnapshot.Binding(service, scope),
+            new Component(Dependency.class, null), new GraphSnapshot.Binding(null, null));
+    }
+
+    static class Base {
+        @Inject
+        Dependency inherited;
+    }
+
+    static class Service extends Base implements TestComponent {
+        private final Dependency dependency;
+        @Inject
+        Dependency field;
+        Dependency method;
+
+        @Inject
+        public Service(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        @Inject
+        void install(Dependency dependency) {
+            this.method = dependency;
+        }
+
+        @Override
+        public Dependency dependency() {
+            return dependency;
+        }
+    }
+
+    static class Qualified {
+        @Named("one")
+        Dependency dependency;
+    }
+
+    @Singleton
+    static class AnotherService implements TestComponent {
+    }
+}
@@ -1,6 +1,7 @@
 package com.time.tdd.di.container;
 
 import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import com.time.tdd.di.container.inaccessible.PackagePrivateInjectPoints;
 import java.lang.reflect.ParameterizedType;
 import java.util.Optional;
 import jakarta.inject.Inject;
@@ -9,10 +10,14 @@ import jakarta.inject.Provider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.Mockito;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -405,6 +410,34 @@ public class InjectionTest {
                 assertEquals(0, component.superCalled);
             }
 
+            @Test
+            void should_call_private_inject_method_of_superclass_even_if_subclass_declares_same_method() {
+                SubClassDeclaringPrivateMethod component =
+                    new InjectionProvider<>(SubClassDeclaringPrivateMethod.class).get(context);
+
+                assertEquals(1, component.superCalled);
+                assertEquals(0, component.subCalled);
+            }
+
+            @Test
+            void should_inject_superclass_methods_before_subclass_fields() {
+                SubClassWithField component = new InjectionProvider<>(SubClassWithField.class).get(context);
+
+                assertSame(dependency, component.field);
+                assertTrue(component.installedBeforeField);
+            }
+
+            @Test
+            void should_not_inject_static_members() {
+                StaticInjectPoints.field = null;
+                StaticInjectPoints.called = false;
+
+                new InjectionProvider<>(StaticInjectPoints.class).get(context);
+
+                assertNull(StaticInjectPoints.field);
+                assertFalse(StaticInjectPoints.called);
+            }
+
             @Test
             void should_inject_provider_via_inject_method() {
                 ProviderInjectMethod instance = new InjectionProvider<>(ProviderInjectMethod.class).get(context);
@@ -434,6 +467,57 @@ public class InjectionTest {
                 }
             }
 
+            static class SuperClassPrivateInjectMethod {
+                int superCalled = 0;
+
+                @Inject
+                private void install() {
+                    superCalled++;
+                }
+            }
+
+            static class SubClassDeclaringPrivateMethod extends SuperClassPrivateInjectMethod {
+                int subCalled = 0;
+
+                private void install() {
+                    subCalled++;
+                }
+            }
+
+            static class SuperClassObservingField {
+                boolean installedBeforeField;
+
+                @Inject
+                void install() {
+                    installedBeforeField = field() == null;
+                }
+
+                Dependency field() {
+                    return null;
+                }
+            }
+
+            static class SubClassWithField extends SuperClassObservingField {
+                @Inject
+                Dependency field;
+
+                @Override
+                Dependency field() {
+                    return field;
+                }
+            }
+
+            static class StaticInjectPoints {
+                @Inject
+                static Dependency field;
+                static boolean called;
+
+                @Inject
+                static void install() {
+                    called = true;
+                }
+            }
+
             static class InjectMethodWithNoDependency {
                 boolean called = false;
 
@@ -531,5 +615,103 @@ public class InjectionTest {
 
     }
 
+    @Nested
+    class WithInstantiation {
+        @ParameterizedTest
+        @EnumSource(Instantiation.class)
+        void should_inject_constructor_field_and_method_via_engine(Instantiation instantiation) {
+            AllInjectionPoints component = new InjectionProvider<>(AllInjectionPoints.class, instantiation).get(context);
+
+            assertSame(dependency, component.constructed);
+            assertSame(dependency, component.field);
+            assertSame(dependency, component.installed);
+        }
+
+        @ParameterizedTest
+        @EnumSource(Instantiation.class)
+        void should_call_inject_points_not_public_from_other_package_via_engine(Instantiation instantiation) {
+            PackagePrivateInjectPoints component =
+                new InjectionProvider<>(PackagePrivateInjectPoints.class, instantiation).get(context);
+
+            assertTrue(component.constructed());
+            assertTrue(component.installed());
+        }
+
+        @ParameterizedTest
+        @EnumSource(Instantiation.class)
+        void should_wrap_checked_exception_thrown_from_inject_constructor(Instantiation instantiation) {
+            InjectionProvider<ThrowingConstructor> provider = new InjectionProvider<>(ThrowingConstructor.class, instantiation);
+
+            assertThrows(RuntimeException.class, () -> provider.get(context));
+        }
+
+        @ParameterizedTest
+        @EnumSource(Instantiation.class)
+        void should_surface_exception_thrown_from_inject_point_the_same_way_for_every_engine(Instantiation instantiation) {
+            RuntimeException checked = assertThrows(RuntimeException.class,
+                () -> new InjectionProvider<>(ThrowingConstructor.class, instantiation).get(context));
+            IllegalStateException unchecked = assertThrows(IllegalStateException.class,
+                () -> new InjectionProvider<>(ThrowingMethod.class, instantiation).get(context));
+
+            assertSame(ThrowingConstructor.THROWN, checked.getCause());
+            assertSame(ThrowingMethod.THROWN, unchecked);
+        }
+
+        static class AllInjectionPoints {
+            Dependency constructed;
+            @Inject
+            Dependency field;
+            Dependency installed;
+
+            @Inject
+            public AllInjectionPoints(Dependency dependency) {
+                this.constructed = dependency;
+            }
+
+            @Inject
+            void install(Dependency dependency) {
+                this.installed = dependency;
+            }
+        }
+
+        static class ThrowingConstructor {
+            static final Exception THROWN = new Exception();
+
+            public ThrowingConstructor() throws Exception {
+                throw THROWN;
+            }
+        }
+
+        static class ThrowingMethod {
+            static final IllegalStateException THROWN = new IllegalStateException();
+
+            @Inject
+            void install() {
+                throw THROWN;
+            }
+        }
+    }
+
+    @Nested
+    class WithMetadataCache {
+        @Test
+        void should_scan_component_class_once_for_all_its_providers() {
+            InjectionProvider<MethodInjection.Injection.SubClassInjectMethod> provider =
+                new InjectionProvider<>(MethodInjection.Injection.SubClassInjectMethod.class);
+            InjectionProvider<MethodInjection.Injection.SubClassInjectMethod> another =
+                new InjectionProvider<>(MethodInjection.Injection.SubClassInjectMethod.class, Instantiation.REFLECTION);
+
+            assertSame(InjectionMetadata.of(MethodInjection.Injection.SubClassInjectMethod.class),
+                InjectionMetadata.of(MethodInjection.Injection.SubClassInjectMethod.class));
+            assertSame(provider.getDependencies(), another.getDependencies());
+        }
+
+        @Test
+        void should_not_cache_illegal_component() {
+            assertThrows(IllegalComponentException.class, () -> new InjectionProvider<>(TestComponent.class));
+            assertThrows(IllegalComponentException.class, () -> new InjectionProvider<>(TestComponent.class));
+        }
+    }
+
 }
 
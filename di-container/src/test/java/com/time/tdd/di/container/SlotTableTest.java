@@ -0,0 +1,47 @@
+package com.time.tdd.di.container;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author XuJian
+ * @date 2023-03-19 17:48
+ **/
+public class SlotTableTest {
+
+    private static Component component(int index) {
+        return new Component(Dependency.class, new NamedLiteral(String.valueOf(index)));
+    }
+
+    @Test
+    void should_find_slot_of_every_component() {
+        List<Component> components = IntStream.range(0, 10_000).mapToObj(SlotTableTest::component).toList();
+
+        SlotTable table = new SlotTable(components);
+
+        for (int i = 0; i < components.size(); i++) {
+            assertEquals(i, table.slotOf(new Component(Dependency.class, new NamedLiteral(String.valueOf(i)))));
+        }
+    }
+
+    @Test
+    void should_not_find_component_not_slotted() {
+        SlotTable table = new SlotTable(List.of(component(0), new Component(Dependency.class, null)));
+
+        assertEquals(SlotTable.MISSING, table.slotOf(component(1)));
+        assertEquals(SlotTable.MISSING, table.slotOf(new Component(TestComponent.class, null)));
+        assertFalse(new SlotTable(List.of()).contains(component(0)));
+    }
+
+    @Test
+    void should_find_aliases_in_their_shared_slot() {
+        SlotTable table = new SlotTable(List.of(component(0), component(1), new Component(Dependency.class, null)), new int[]{0, 0, 1});
+
+        assertEquals(0, table.slotOf(component(0)));
+        assertEquals(0, table.slotOf(component(1)));
+        assertEquals(1, table.slotOf(new Component(Dependency.class, null)));
+    }
+}
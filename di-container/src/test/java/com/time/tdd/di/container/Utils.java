@@ -33,6 +33,7 @@ interface AnotherDependency {
 @Documented
 @Retention(RUNTIME)
 @interface Pooled {
+    int size() default PooledProvider.DEFAULT_SIZE;
 }
 
 record NamedLiteral(String value) implements jakarta.inject.Named {
@@ -91,7 +92,11 @@ record SingletonLiteral() implements Singleton {
     }
 }
 
-record PooledLiteral() implements Pooled {
+record PooledLiteral(int size) implements Pooled {
+
+    PooledLiteral() {
+        this(PooledProvider.DEFAULT_SIZE);
+    }
 
     @Override
     public Class<? extends Annotation> annotationType() {
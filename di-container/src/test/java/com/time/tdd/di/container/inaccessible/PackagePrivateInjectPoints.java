@@ -0,0 +1,30 @@
+package com.time.tdd.di.container.inaccessible;
+
+import jakarta.inject.Inject;
+
+public class PackagePrivateInjectPoints {
+    private final boolean constructed;
+    private boolean installed;
+
+    @Inject
+    PackagePrivateInjectPoints() {
+        this.constructed = true;
+    }
+
+    public PackagePrivateInjectPoints(boolean constructed) {
+        this.constructed = constructed;
+    }
+
+    @Inject
+    void install() {
+        this.installed = true;
+    }
+
+    public boolean constructed() {
+        return constructed;
+    }
+
+    public boolean installed() {
+        return installed;
+    }
+}
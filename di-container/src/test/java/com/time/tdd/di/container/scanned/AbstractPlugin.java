@@ -0,0 +1,8 @@
+package com.time.tdd.di.container.scanned;
+
+import jakarta.inject.Inject;
+
+public abstract class AbstractPlugin implements Plugin {
+    @Inject
+    Repository repository;
+}
@@ -0,0 +1,17 @@
+package com.time.tdd.di.container.scanned;
+
+import jakarta.inject.Inject;
+
+public class DefaultService implements Service {
+    private final Repository repository;
+
+    @Inject
+    public DefaultService(Repository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Repository repository() {
+        return repository;
+    }
+}
@@ -0,0 +1,11 @@
+package com.time.tdd.di.container.scanned;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@Documented
+@Retention(RUNTIME)
+public @interface Described {
+    String value();
+}
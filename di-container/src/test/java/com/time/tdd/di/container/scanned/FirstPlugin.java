@@ -0,0 +1,7 @@
+package com.time.tdd.di.container.scanned;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class FirstPlugin extends AbstractPlugin {
+}
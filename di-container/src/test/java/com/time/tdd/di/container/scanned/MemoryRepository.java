@@ -0,0 +1,8 @@
+package com.time.tdd.di.container.scanned;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+@Described("kept in memory")
+public class MemoryRepository implements Repository {
+}
@@ -0,0 +1,8 @@
+package com.time.tdd.di.container.scanned;
+
+public class PlainService implements Service {
+    @Override
+    public Repository repository() {
+        return null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.time.tdd.di.container.scanned;
+
+public interface Plugin {
+}
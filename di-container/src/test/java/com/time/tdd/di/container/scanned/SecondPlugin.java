@@ -0,0 +1,8 @@
+package com.time.tdd.di.container.scanned;
+
+import jakarta.inject.Inject;
+
+public class SecondPlugin implements Plugin {
+    @Inject
+    Repository repository;
+}
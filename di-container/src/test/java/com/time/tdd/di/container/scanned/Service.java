@@ -0,0 +1,5 @@
+package com.time.tdd.di.container.scanned;
+
+public interface Service {
+    Repository repository();
+}
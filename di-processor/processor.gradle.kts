@@ -0,0 +1,25 @@
+plugins {
+    id("com.time.tdd.java-conventions")
+}
+
+dependencies {
+    testImplementation(project(":container"))
+    testImplementation("jakarta.inject:jakarta.inject-api:2.0.1")
+    testAnnotationProcessor(sourceSets.main.get().output)
+}
+
+// every mode runs in its own jvm, so both pay the full cold start
+val startupBenchmarks = listOf("reflective", "generated").map { mode ->
+    tasks.register<JavaExec>("startupBenchmark${mode.replaceFirstChar { it.uppercase() }}") {
+        group = "benchmark"
+        classpath = sourceSets.test.get().runtimeClasspath
+        mainClass.set("com.time.tdd.di.processor.StartupBenchmark")
+        args(mode)
+    }
+}
+
+tasks.register("startupBenchmark") {
+    group = "benchmark"
+    description = "Compares container start up with reflective and generated component factories"
+    dependsOn(startupBenchmarks)
+}
@@ -0,0 +1,244 @@
+package com.time.tdd.di.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * generates a {@code ComponentFactory} for every component whose inject points can be called from plain java,
+ * and one {@code ComponentRegistry} listing them. components it can't handle are left to reflection.
+ * the registry is named by {@code -Atime.tdd.di.registry}, by default {@code GeneratedComponentRegistry} in the deepest
+ * package holding all the components, so each module gets its own and {@code ContextConfig.useGeneratedFactories}
+ * loads them side by side as services. components sharing no package need the option.
+ * all concrete components are listed in an index, so {@code ContextConfig.scan} doesn't scan the compiled classes.
+ * with {@code -Atime.tdd.di.verify=true} the graph scanning binds is verified, failing the compilation on missing
+ * or cyclic dependencies, and the index is written in dependency order marked as verified, so the context
+ * created from it isn't validated again. {@code -Atime.tdd.di.scan=com.app,com.lib} names the packages passed to
+ * {@code scan}, whose interfaces it binds, by default the packages of the components
+ *
+ * @author XuJian
+ * @date 2023-03-18 16:02
+ **/
+@SupportedAnnotationTypes({ComponentFactoryProcessor.INJECT, ComponentFactoryProcessor.SINGLETON})
+@SupportedOptions({ComponentFactoryProcessor.REGISTRY, ComponentFactoryProcessor.VERIFY, ComponentFactoryProcessor.SCAN})
+public class ComponentFactoryProcessor extends AbstractProcessor {
+    static final String INJECT = "jakarta.inject.Inject";
+    static final String SINGLETON = "jakarta.inject.Singleton";
+    static final String REGISTRY = "time.tdd.di.registry";
+    static final String VERIFY = "time.tdd.di.verify";
+    static final String SCAN = "time.tdd.di.scan";
+    static final String REGISTRY_NAME = "GeneratedComponentRegistry";
+    static final String REGISTRY_SERVICE = "META-INF/services/com.time.tdd.di.container.ComponentRegistry";
+    static final String COMPONENT_INDEX = "META-INF/time-tdd/components.idx";
+    static final String VERIFIED = "#verified";
+
+    // component binary name -> factory qualified name
+    private final Map<String, String> factories = new TreeMap<>();
+    private final Map<String, TypeElement> indexed = new TreeMap<>();
+    private boolean registryWritten;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Set<TypeElement> components = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                Element type = element.getKind() == ElementKind.CLASS ? element : element.getEnclosingElement();
+                if (type.getKind() == ElementKind.CLASS) {
+                    components.add((TypeElement) type);
+                }
+            }
+        }
+        boolean generated = false;
+        for (TypeElement component : components) {
+            String binaryName = processingEnv.getElementUtils().getBinaryName(component).toString();
+            if (isIndexed(component)) {
+                indexed.put(binaryName, component);
+            }
+            if (!factories.containsKey(binaryName)) {
+                Optional<String> factory = generate(component);
+                factory.ifPresent(name -> factories.put(binaryName, name));
+                generated |= factory.isPresent();
+            }
+        }
+        // written in the first round without new factories rather than the last one, so the registry gets compiled too
+        if (generated && registryWritten) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "factories generated after the component registry was written are only used through reflection");
+        }
+        if (!generated && !registryWritten && !factories.isEmpty()) {
+            writeRegistry();
+            registryWritten = true;
+        }
+        if (round.processingOver() && !indexed.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private Optional<String> generate(TypeElement component) {
+        ComponentModel model;
+        try {
+            model = ComponentModel.of(component, processingEnv);
+        } catch (ComponentModel.UnsupportedComponentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "no factory generated, injected reflectively: " + e.getMessage(), component);
+            return Optional.empty();
+        }
+        try (Writer writer = processingEnv.getFiler().createSourceFile(model.factoryName(), component).openWriter()) {
+            writer.write(model.factorySource());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can't write factory: " + e, component);
+            return Optional.empty();
+        }
+        return Optional.of(model.factoryName());
+    }
+
+    /**
+     * concrete components the container can construct, the ones {@code ContextConfig.scan} binds
+     */
+    private static boolean isIndexed(TypeElement component) {
+        if (component.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        ElementKind enclosing = component.getEnclosingElement().getKind();
+        return enclosing == ElementKind.PACKAGE || enclosing.isInterface()
+            || enclosing.isClass() && component.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private void writeIndex() {
+        List<String> lines = new ArrayList<>();
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(VERIFY))) {
+            List<String> packages = Arrays.stream(processingEnv.getOptions().getOrDefault(SCAN, "").split(","))
+                .map(String::trim).filter(p -> !p.isEmpty()).toList();
+            Optional<Map<TypeElement, List<String>>> verified = GraphVerifier.verify(List.copyOf(indexed.values()), packages,
+                processingEnv);
+            if (verified.isEmpty()) {
+                return;
+            }
+            lines.add(VERIFIED);
+            verified.get().forEach((component, interfaces) -> lines.add(Stream.concat(
+                Stream.of(processingEnv.getElementUtils().getBinaryName(component).toString()), interfaces.stream())
+                .collect(Collectors.joining(" "))));
+        } else {
+            lines.addAll(indexed.keySet());
+        }
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", COMPONENT_INDEX)
+            .openWriter()) {
+            for (String line : lines) {
+                writer.write(line + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can't write component index: " + e);
+        }
+    }
+
+    /**
+     * the option, or the registry in the deepest package holding the components with factories
+     */
+    private Optional<String> registryName() {
+        String option = processingEnv.getOptions().get(REGISTRY);
+        if (option != null) {
+            return Optional.of(option);
+        }
+        String[] common = null;
+        int depth = 0;
+        for (String factory : factories.values()) {
+            int dot = factory.lastIndexOf('.');
+            String[] pkg = dot < 0 ? new String[0] : factory.substring(0, dot).split("\\.");
+            if (common == null) {
+                common = pkg;
+                depth = pkg.length;
+            }
+            int shared = 0;
+            while (shared < Math.min(depth, pkg.length) && common[shared].equals(pkg[shared])) {
+                shared++;
+            }
+            depth = shared;
+        }
+        if (depth == 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "components share no package to put the component registry in, name it with -A" + REGISTRY);
+            return Optional.empty();
+        }
+        return Optional.of(String.join(".", Arrays.copyOf(common, depth)) + "." + REGISTRY_NAME);
+    }
+
+    private void writeRegistry() {
+        Optional<String> name = registryName();
+        if (name.isEmpty()) {
+            return;
+        }
+        String registry = name.get();
+        int dot = registry.lastIndexOf('.');
+        StringBuilder source = new StringBuilder();
+        if (dot > 0) {
+            source.append("package ").append(registry, 0, dot).append(";\n\n");
+        }
+        source.append("""
+            import com.time.tdd.di.container.ComponentFactory;
+            import com.time.tdd.di.container.ComponentRegistry;
+            import java.util.HashMap;
+            import java.util.Map;
+            import javax.annotation.processing.Generated;
+
+            @Generated("%s")
+            public final class %s implements ComponentRegistry {
+                private static final Map<Class<?>, ComponentFactory<?>> FACTORIES = new HashMap<>();
+
+                static {
+            """.formatted(ComponentFactoryProcessor.class.getName(), registry.substring(dot + 1)));
+        for (String factory : factories.values()) {
+            source.append("        register(new ").append(factory).append("());\n");
+        }
+        source.append("""
+                }
+
+                private static void register(ComponentFactory<?> factory) {
+                    FACTORIES.put(factory.type(), factory);
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public <T> ComponentFactory<T> factory(Class<T> implementation) {
+                    return (ComponentFactory<T>) FACTORIES.get(implementation);
+                }
+            }
+            """);
+        try {
+            try (Writer writer = processingEnv.getFiler().createSourceFile(registry).openWriter()) {
+                writer.write(source.toString());
+            }
+            try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", REGISTRY_SERVICE)
+                .openWriter()) {
+                writer.write(registry + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can't write component registry: " + e);
+        }
+    }
+}
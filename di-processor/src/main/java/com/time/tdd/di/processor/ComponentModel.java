@@ -0,0 +1,244 @@
+package com.time.tdd.di.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+/**
+ * inject points of a component as seen by the compiler, chosen the same way InjectionProvider chooses them
+ *
+ * @author XuJian
+ * @date 2023-03-18 16:40
+ **/
+class ComponentModel {
+    private static final String QUALIFIER = "jakarta.inject.Qualifier";
+
+    private final TypeElement component;
+    private final PackageElement pkg;
+    private final String factoryName;
+    private final List<Dependency> dependencies = new ArrayList<>();
+    private final int constructorArguments;
+    private final List<VariableElement> fields;
+    private final List<ExecutableElement> methods;
+
+    private ComponentModel(TypeElement component, ProcessingEnvironment environment) {
+        Elements elements = environment.getElementUtils();
+        this.component = component;
+        this.pkg = elements.getPackageOf(component);
+        String binaryName = elements.getBinaryName(component).toString();
+        this.factoryName = binaryName.replace('$', '_') + "_Factory";
+
+        checkComponent();
+        ExecutableElement constructor = injectConstructor();
+        // static members are never injected
+        this.fields = ElementFilter.fieldsIn(component.getEnclosedElements()).stream().filter(ComponentModel::isInject)
+            .filter(f -> !f.getModifiers().contains(Modifier.STATIC)).toList();
+        this.methods = ElementFilter.methodsIn(component.getEnclosedElements()).stream().filter(ComponentModel::isInject)
+            .filter(m -> !m.getModifiers().contains(Modifier.STATIC)).toList();
+        checkSuperclasses(component);
+
+        constructor.getParameters().forEach(this::addDependency);
+        this.constructorArguments = dependencies.size();
+        for (VariableElement field : fields) {
+            check(!field.getModifiers().contains(Modifier.PRIVATE), "private inject field " + field);
+            check(!field.getModifiers().contains(Modifier.FINAL), "final inject field " + field);
+            addDependency(field);
+        }
+        for (ExecutableElement method : methods) {
+            check(!method.getModifiers().contains(Modifier.PRIVATE), "private inject method " + method);
+            check(method.getTypeParameters().isEmpty(), "inject method with type parameters " + method);
+            method.getParameters().forEach(this::addDependency);
+        }
+    }
+
+    static ComponentModel of(TypeElement component, ProcessingEnvironment environment) {
+        return new ComponentModel(component, environment);
+    }
+
+    static boolean isInject(Element element) {
+        return element.getAnnotationMirrors().stream()
+            .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(ComponentFactoryProcessor.INJECT));
+    }
+
+    static boolean isQualifier(AnnotationMirror annotation) {
+        return annotation.getAnnotationType().asElement().getAnnotationMirrors().stream()
+            .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(QUALIFIER));
+    }
+
+    private static void check(boolean supported, String reason) {
+        if (!supported) {
+            throw new UnsupportedComponentException(reason);
+        }
+    }
+
+    private void checkComponent() {
+        check(!component.getModifiers().contains(Modifier.ABSTRACT), "abstract component");
+        check(component.getTypeParameters().isEmpty(), "generic component");
+        check(accessible(component), "component not accessible from its package");
+        for (Element element = component; element.getEnclosingElement().getKind() != ElementKind.PACKAGE;
+             element = element.getEnclosingElement()) {
+            ElementKind enclosing = element.getEnclosingElement().getKind();
+            check(enclosing.isClass() || enclosing.isInterface(), "local component");
+            check(enclosing.isInterface() || element.getModifiers().contains(Modifier.STATIC), "inner component");
+        }
+    }
+
+    private ExecutableElement injectConstructor() {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> inject = constructors.stream().filter(ComponentModel::isInject).toList();
+        check(inject.size() <= 1, "more than one inject constructor");
+        ExecutableElement constructor = inject.isEmpty()
+            ? constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst()
+            .orElseThrow(() -> new UnsupportedComponentException("no inject nor default constructor"))
+            : inject.get(0);
+        check(!constructor.getModifiers().contains(Modifier.PRIVATE), "private constructor");
+        return constructor;
+    }
+
+    private static void checkSuperclasses(TypeElement component) {
+        TypeMirror superclass = component.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement type = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (type.getQualifiedName().contentEquals("java.lang.Object")) {
+                return;
+            }
+            check(type.getEnclosedElements().stream().filter(e -> e.getKind() != ElementKind.CONSTRUCTOR)
+                .filter(e -> !e.getModifiers().contains(Modifier.STATIC)).noneMatch(ComponentModel::isInject),
+                "inherited inject points from " + type);
+            superclass = type.getSuperclass();
+        }
+    }
+
+    private void addDependency(VariableElement element) {
+        check(element.getAnnotationMirrors().stream().noneMatch(ComponentModel::isQualifier), "qualified dependency " + element);
+        TypeMirror type = element.asType();
+        check(type.getKind() == TypeKind.DECLARED, "dependency of type " + type);
+        DeclaredType declared = (DeclaredType) type;
+        check(accessible((TypeElement) declared.asElement()), "dependency type " + type + " not accessible");
+        List<? extends TypeMirror> arguments = declared.getTypeArguments();
+        if (arguments.isEmpty()) {
+            dependencies.add(new Dependency(type.toString(), "ComponentRef.of(" + type + ".class)"));
+            return;
+        }
+        check(arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED
+            && ((DeclaredType) arguments.get(0)).getTypeArguments().isEmpty(), "dependency of type " + type);
+        check(accessible((TypeElement) ((DeclaredType) arguments.get(0)).asElement()), "dependency type " + type + " not accessible");
+        dependencies.add(new Dependency(type.toString(), "new ComponentRef<" + type + ">() {\n        }"));
+    }
+
+    private boolean accessible(TypeElement type) {
+        for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !pkg.equals(packageOf(element))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        Element current = element;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            current = current.getEnclosingElement();
+        }
+        return (PackageElement) current;
+    }
+
+    String factoryName() {
+        return factoryName;
+    }
+
+    String factorySource() {
+        String type = component.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!pkg.isUnnamed()) {
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        source.append("""
+            import com.time.tdd.di.container.ComponentFactory;
+            import com.time.tdd.di.container.ComponentRef;
+            import com.time.tdd.di.container.Dependencies;
+            import java.util.List;
+            import javax.annotation.processing.Generated;
+
+            @Generated("%s")
+            public final class %s implements ComponentFactory<%s> {
+                private static final List<ComponentRef<?>> DEPENDENCIES = List.of(""".formatted(
+            ComponentFactoryProcessor.class.getName(), factoryName.substring(factoryName.lastIndexOf('.') + 1), type));
+        for (int i = 0; i < dependencies.size(); i++) {
+            source.append(i == 0 ? "\n" : ",\n").append("        ").append(dependencies.get(i).ref());
+        }
+        source.append(");\n\n");
+        source.append("""
+                @Override
+                public Class<%1$s> type() {
+                    return %1$s.class;
+                }
+
+                @Override
+                public List<ComponentRef<?>> dependencies() {
+                    return DEPENDENCIES;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public %1$s create(Dependencies dependencies) {
+            """.formatted(type));
+        source.append("        ").append(type).append(" instance = new ").append(type).append("(")
+            .append(arguments(0, constructorArguments)).append(");\n");
+        int index = constructorArguments;
+        for (VariableElement field : fields) {
+            source.append("        instance.").append(field.getSimpleName()).append(" = ").append(argument(index++)).append(";\n");
+        }
+        for (ExecutableElement method : methods) {
+            int parameters = method.getParameters().size();
+            source.append("        instance.").append(method.getSimpleName()).append("(")
+                .append(arguments(index, index + parameters)).append(");\n");
+            index += parameters;
+        }
+        source.append("""
+                    return instance;
+                }
+            }
+            """);
+        return source.toString();
+    }
+
+    private String arguments(int from, int to) {
+        List<String> arguments = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            arguments.add(argument(i));
+        }
+        return String.join(", ", arguments);
+    }
+
+    private String argument(int index) {
+        return "(" + dependencies.get(index).type() + ") dependencies.resolve(" + index + ")";
+    }
+
+    private record Dependency(String type, String ref) {
+    }
+
+    static class UnsupportedComponentException extends RuntimeException {
+        UnsupportedComponentException(String reason) {
+            super(reason);
+        }
+    }
+}
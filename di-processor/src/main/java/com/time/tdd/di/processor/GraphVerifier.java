@@ -0,0 +1,264 @@
+package com.time.tdd.di.processor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * the graph {@code ContextConfig.scan} binds from the compiled components, validated like {@code getContext} does:
+ * every component bound to itself and to the interfaces of the scanned packages only it implements,
+ * every dependency bound, containers nested only as a provider or lazy of an unqualified multibinding, multibindings
+ * never qualified, and no cycle through dependencies that aren't deferred by a provider
+ *
+ * @author XuJian
+ * @date 2023-03-25 15:20
+ **/
+class GraphVerifier {
+    private static final String PROVIDER = "jakarta.inject.Provider";
+    private static final String LAZY = "com.time.tdd.di.container.Lazy";
+    private static final Set<String> MULTIBINDINGS = Set.of("java.util.List", "java.util.Set");
+
+    private final ProcessingEnvironment environment;
+    private final List<TypeElement> components;
+    private final List<String> packages;
+    // key of a binding, type name and qualifier -> component bound to it
+    private final Map<String, TypeElement> bindings = new HashMap<>();
+    private final Map<String, List<TypeElement>> byType = new HashMap<>();
+    private final Map<TypeElement, List<String>> interfaces = new LinkedHashMap<>();
+    private final Map<TypeElement, List<TypeElement>> edges = new HashMap<>();
+    private boolean failed;
+
+    private GraphVerifier(List<TypeElement> components, List<String> packages, ProcessingEnvironment environment) {
+        this.components = components;
+        this.packages = packages;
+        this.environment = environment;
+    }
+
+    /**
+     * @param packages passed to {@code scan}, empty for the packages of the components
+     * @return components in dependency order with the interfaces bound to them, empty if errors were reported
+     */
+    static Optional<Map<TypeElement, List<String>>> verify(List<TypeElement> components, List<String> packages,
+                                                           ProcessingEnvironment environment) {
+        GraphVerifier verifier = new GraphVerifier(components, packages, environment);
+        verifier.bind();
+        components.forEach(verifier::link);
+        Map<TypeElement, List<String>> ordered = verifier.failed ? Map.of() : verifier.sort();
+        return verifier.failed ? Optional.empty() : Optional.of(ordered);
+    }
+
+    private void bind() {
+        Set<String> scanned = !packages.isEmpty() ? Set.copyOf(packages) : components.stream()
+            .map(c -> environment.getElementUtils().getPackageOf(c).getQualifiedName().toString()).collect(Collectors.toSet());
+        Map<String, List<TypeElement>> implementations = new HashMap<>();
+        for (TypeElement component : components) {
+            for (TypeElement type : interfacesOf(component)) {
+                // the rule of ContextConfig.inPackages
+                if (scanned.stream().anyMatch(p -> name(type).startsWith(p + "."))) {
+                    implementations.computeIfAbsent(name(type), t -> new ArrayList<>()).add(component);
+                }
+            }
+        }
+        for (TypeElement component : components) {
+            List<String> bound = interfacesOf(component).stream().map(this::name)
+                .filter(type -> implementations.getOrDefault(type, List.of()).size() == 1).toList();
+            interfaces.put(component, bound);
+            List<String> qualifiers = component.getAnnotationMirrors().stream().filter(ComponentModel::isQualifier)
+                .map(AnnotationMirror::toString).toList();
+            List<String> types = new ArrayList<>(bound);
+            types.add(0, name(component));
+            for (String type : types) {
+                byType.computeIfAbsent(type, t -> new ArrayList<>()).add(component);
+                if (qualifiers.isEmpty()) {
+                    bindings.put(key(type, null), component);
+                }
+                qualifiers.forEach(qualifier -> bindings.put(key(type, qualifier), component));
+            }
+        }
+    }
+
+    private Set<TypeElement> interfacesOf(TypeElement component) {
+        Set<TypeElement> found = new LinkedHashSet<>();
+        Deque<TypeMirror> pending = new ArrayDeque<>();
+        for (TypeElement current = component; current != null; current = superclassOf(current)) {
+            pending.addAll(current.getInterfaces());
+        }
+        while (!pending.isEmpty()) {
+            TypeElement type = (TypeElement) ((DeclaredType) pending.pop()).asElement();
+            if (found.add(type)) {
+                pending.addAll(type.getInterfaces());
+            }
+        }
+        return found;
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private void link(TypeElement component) {
+        List<TypeElement> dependencies = new ArrayList<>();
+        for (VariableElement dependency : injectPoints(component)) {
+            String qualifier = dependency.getAnnotationMirrors().stream().filter(ComponentModel::isQualifier)
+                .map(AnnotationMirror::toString).findFirst().orElse(null);
+            TypeMirror type = dependency.asType();
+            if (type.getKind() != TypeKind.DECLARED) {
+                error("dependency of type " + type, dependency);
+                continue;
+            }
+            DeclaredType declared = (DeclaredType) type;
+            String raw = name((TypeElement) declared.asElement());
+            if (declared.getTypeArguments().isEmpty()) {
+                required(raw, qualifier, dependency).ifPresent(dependencies::add);
+                continue;
+            }
+            TypeMirror argument = declared.getTypeArguments().get(0);
+            if (argument.getKind() != TypeKind.DECLARED) {
+                error("dependency of type " + type, dependency);
+                continue;
+            }
+            DeclaredType element = (DeclaredType) argument;
+            String elementType = name((TypeElement) element.asElement());
+            if (MULTIBINDINGS.contains(raw) && element.getTypeArguments().isEmpty()) {
+                // every binding of the type is an element, a qualifier can't select among them
+                if (qualifier != null) {
+                    error("qualified dependency of type " + type, dependency);
+                    continue;
+                }
+                dependencies.addAll(byType.getOrDefault(elementType, List.of()));
+            } else if ((raw.equals(PROVIDER) || raw.equals(LAZY)) && element.getTypeArguments().isEmpty()) {
+                // deferred, only needs to be bound
+                required(elementType, qualifier, dependency);
+            } else if ((raw.equals(PROVIDER) || raw.equals(LAZY)) && MULTIBINDINGS.contains(elementType)) {
+                // a deferred multibinding is always resolvable, but only of a plain type and never qualified
+                TypeMirror nested = element.getTypeArguments().get(0);
+                if (qualifier != null) {
+                    error("qualified dependency of type " + type, dependency);
+                } else if (nested.getKind() != TypeKind.DECLARED || !((DeclaredType) nested).getTypeArguments().isEmpty()) {
+                    error("dependency of type " + type, dependency);
+                }
+            } else {
+                error("dependency of type " + type, dependency);
+            }
+        }
+        edges.put(component, dependencies);
+    }
+
+    private Optional<TypeElement> required(String type, String qualifier, Element dependency) {
+        TypeElement component = bindings.get(key(type, qualifier));
+        if (component == null) {
+            error("unsatisfied dependency " + (qualifier == null ? "" : qualifier + " ") + type, dependency);
+        }
+        return Optional.ofNullable(component);
+    }
+
+    /**
+     * inject points as InjectionMetadata finds them: the inject or default constructor, instance inject fields of the
+     * component and its superclasses, and their instance inject methods not overridden by a subclass
+     */
+    private List<VariableElement> injectPoints(TypeElement component) {
+        List<VariableElement> points = new ArrayList<>();
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> inject = constructors.stream().filter(ComponentModel::isInject).toList();
+        if (inject.size() > 1) {
+            error("more than one inject constructor", component);
+        }
+        Optional<ExecutableElement> constructor = inject.isEmpty()
+            ? constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst() : Optional.of(inject.get(0));
+        if (constructor.isEmpty()) {
+            error("no inject nor default constructor", component);
+        }
+        constructor.ifPresent(c -> points.addAll(c.getParameters()));
+        List<ExecutableElement> overriding = new ArrayList<>();
+        for (TypeElement current = component; current != null && !name(current).equals("java.lang.Object");
+             current = superclassOf(current)) {
+            ElementFilter.fieldsIn(current.getEnclosedElements()).stream().filter(ComponentModel::isInject)
+                .filter(f -> !f.getModifiers().contains(Modifier.STATIC)).forEach(points::add);
+            List<ExecutableElement> methods = ElementFilter.methodsIn(current.getEnclosedElements()).stream()
+                .filter(m -> !m.getModifiers().contains(Modifier.STATIC)).toList();
+            for (ExecutableElement method : methods) {
+                if (ComponentModel.isInject(method) && overriding.stream().noneMatch(o -> environment.getElementUtils()
+                    .overrides(o, method, (TypeElement) o.getEnclosingElement()))) {
+                    points.addAll(method.getParameters());
+                }
+            }
+            methods.stream().filter(m -> !m.getModifiers().contains(Modifier.PRIVATE)).forEach(overriding::add);
+        }
+        return points;
+    }
+
+    private Map<TypeElement, List<String>> sort() {
+        Map<TypeElement, List<String>> ordered = new LinkedHashMap<>();
+        Set<TypeElement> visiting = new LinkedHashSet<>();
+        for (TypeElement root : components) {
+            if (ordered.containsKey(root)) {
+                continue;
+            }
+            Deque<Map.Entry<TypeElement, Iterator<TypeElement>>> path = new ArrayDeque<>();
+            visiting.add(root);
+            path.push(Map.entry(root, edges.get(root).iterator()));
+            while (!path.isEmpty()) {
+                Map.Entry<TypeElement, Iterator<TypeElement>> frame = path.peek();
+                if (!frame.getValue().hasNext()) {
+                    visiting.remove(frame.getKey());
+                    ordered.put(frame.getKey(), interfaces.get(frame.getKey()));
+                    path.pop();
+                    continue;
+                }
+                TypeElement dependency = frame.getValue().next();
+                if (visiting.contains(dependency)) {
+                    List<String> cycle = new ArrayList<>();
+                    boolean on = false;
+                    for (TypeElement node : visiting) {
+                        on |= node.equals(dependency);
+                        if (on) {
+                            cycle.add(name(node));
+                        }
+                    }
+                    error("cyclic dependencies " + String.join(" -> ", cycle) + " -> " + name(dependency), root);
+                    return Map.of();
+                }
+                if (!ordered.containsKey(dependency)) {
+                    visiting.add(dependency);
+                    path.push(Map.entry(dependency, edges.get(dependency).iterator()));
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private static String key(String type, String qualifier) {
+        return qualifier == null ? type : type + " " + qualifier;
+    }
+
+    private String name(TypeElement type) {
+        return environment.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void error(String message, Element element) {
+        failed = true;
+        environment.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,91 @@
+package com.time.tdd.di.processor;
+
+import com.time.tdd.di.container.ComponentRef;
+import com.time.tdd.di.container.ComponentRegistry;
+import com.time.tdd.di.container.Context;
+import com.time.tdd.di.container.ContextConfig;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ServiceLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XuJian
+ * @date 2023-03-18 17:30
+ **/
+public class ComponentFactoryProcessorTest {
+    ComponentRegistry registry;
+    ContextConfig config;
+
+    @BeforeEach
+    public void setup() {
+        registry = ServiceLoader.load(ComponentRegistry.class).findFirst().orElseThrow();
+        config = new ContextConfig();
+        config.useGeneratedFactories();
+    }
+
+    @Test
+    void should_generate_factories_for_injectable_components() {
+        assertNotNull(registry.factory(V8Engine.class));
+        assertNotNull(registry.factory(Wheel.class));
+        assertNotNull(registry.factory(Driver.class));
+        assertNotNull(registry.factory(Car.class));
+    }
+
+    @Test
+    void should_name_registry_after_common_package_of_components() {
+        assertEquals(getClass().getPackageName() + "." + ComponentFactoryProcessor.REGISTRY_NAME, registry.getClass().getName());
+    }
+
+    @Test
+    void should_leave_components_not_callable_from_generated_code_to_reflection() {
+        assertNull(registry.factory(QualifiedCar.class));
+        assertNull(registry.factory(PrivateFieldCar.class));
+    }
+
+    @Test
+    void should_inject_component_via_generated_factory() {
+        config.bind(Engine.class, V8Engine.class);
+        config.bind(Wheel.class, Wheel.class);
+        config.bind(Driver.class, Driver.class);
+        config.bind(Car.class, Car.class);
+
+        Context context = config.getContext();
+        Car car = context.get(ComponentRef.of(Car.class)).get();
+
+        assertSame(context.get(ComponentRef.of(Engine.class)).get(), car.engine);
+        assertNotNull(car.wheel);
+        assertNotNull(car.driver.get().wheel);
+    }
+
+    @Test
+    void should_mix_generated_and_reflective_components() {
+        config.bind(Wheel.class, Wheel.class);
+        config.bind(PrivateFieldCar.class, PrivateFieldCar.class);
+
+        PrivateFieldCar car = config.getContext().get(ComponentRef.of(PrivateFieldCar.class)).get();
+
+        assertInstanceOf(Wheel.class, car.wheel());
+    }
+
+    @Test
+    void should_index_concrete_components_for_scanning() throws Exception {
+        List<String> indexed;
+        try (InputStream index = getClass().getClassLoader().getResourceAsStream("META-INF/time-tdd/components.idx")) {
+            indexed = new String(index.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+
+        assertTrue(indexed.contains(Car.class.getName()));
+        assertTrue(indexed.contains(PrivateFieldCar.class.getName()));
+        assertFalse(indexed.contains(Engine.class.getName()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.time.tdd.di.processor;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+interface Engine {
+}
+
+@Singleton
+class V8Engine implements Engine {
+}
+
+class Wheel {
+    @Inject
+    public Wheel() {
+    }
+}
+
+class Driver {
+    @Inject
+    Wheel wheel;
+}
+
+class Car {
+    final Engine engine;
+    @Inject
+    Wheel wheel;
+    Provider<Driver> driver;
+
+    @Inject
+    public Car(Engine engine) {
+        this.engine = engine;
+    }
+
+    @Inject
+    void install(Provider<Driver> driver) {
+        this.driver = driver;
+    }
+}
+
+class QualifiedCar {
+    @Inject
+    @Named("spare")
+    Wheel spare;
+}
+
+class PrivateFieldCar {
+    @Inject
+    private Wheel wheel;
+
+    Wheel wheel() {
+        return wheel;
+    }
+}
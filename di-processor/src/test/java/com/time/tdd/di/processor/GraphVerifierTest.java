@@ -0,0 +1,304 @@
+package com.time.tdd.di.processor;
+
+import com.time.tdd.di.container.ContextConfig;
+import com.time.tdd.di.container.exceptions.IllegalComponentException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XuJian
+ * @date 2023-03-25 16:10
+ **/
+public class GraphVerifierTest {
+    Path output;
+    DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        output = Files.createTempDirectory("verified");
+        diagnostics = new DiagnosticCollector<>();
+    }
+
+    private boolean compile(String... sources) {
+        return compile(List.of(), sources);
+    }
+
+    private boolean compile(List<String> options, String... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<JavaFileObject> units = Arrays.stream(sources).map(Source::new).map(JavaFileObject.class::cast).toList();
+        List<String> arguments = new ArrayList<>(List.of("-proc:only", "-A" + ComponentFactoryProcessor.VERIFY + "=true",
+            "-classpath", System.getProperty("java.class.path"), "-d", output.toString(), "-s", output.toString()));
+        arguments.addAll(options);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, arguments, null, units);
+        task.setProcessors(List.of(new ComponentFactoryProcessor()));
+        return task.call();
+    }
+
+    private List<String> errors() {
+        return diagnostics.getDiagnostics().stream().filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+            .map(d -> d.getMessage(null)).toList();
+    }
+
+    private List<String> index() throws IOException {
+        return Files.readAllLines(output.resolve(ComponentFactoryProcessor.COMPONENT_INDEX));
+    }
+
+    @Test
+    void should_write_index_in_dependency_order_marked_as_verified() throws IOException {
+        assertTrue(compile("""
+            package verified;
+            public interface Repository {
+            }""", """
+            package verified;
+            public class Service {
+                @jakarta.inject.Inject
+                public Service(Repository repository) {
+                }
+            }""", """
+            package verified;
+            public class MemoryRepository implements Repository {
+                @jakarta.inject.Inject
+                public MemoryRepository() {
+                }
+            }"""));
+
+        assertEquals(List.of(ComponentFactoryProcessor.VERIFIED, "verified.MemoryRepository verified.Repository",
+            "verified.Service"), index());
+    }
+
+    @Test
+    void should_bind_interfaces_anywhere_in_scanned_packages() throws IOException {
+        String[] sources = {"""
+            package com.app.api;
+            public interface Repository {
+            }""", """
+            package com.app.impl;
+            public class Service {
+                @jakarta.inject.Inject
+                public Service(com.app.api.Repository repository) {
+                }
+            }""", """
+            package com.app.impl;
+            public class MemoryRepository implements com.app.api.Repository {
+                @jakarta.inject.Inject
+                public MemoryRepository() {
+                }
+            }"""};
+
+        assertFalse(compile(sources));
+        assertEquals(List.of("unsatisfied dependency com.app.api.Repository"), errors());
+
+        diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(List.of("-A" + ComponentFactoryProcessor.SCAN + "=com.app"), sources));
+        assertEquals(List.of(ComponentFactoryProcessor.VERIFIED, "com.app.impl.MemoryRepository com.app.api.Repository",
+            "com.app.impl.Service"), index());
+    }
+
+    @Test
+    void should_fail_compilation_on_unsatisfied_dependency() {
+        assertFalse(compile("""
+            package verified;
+            public class Service {
+                @jakarta.inject.Inject
+                public Service(Runnable task) {
+                }
+            }"""));
+
+        assertEquals(List.of("unsatisfied dependency java.lang.Runnable"), errors());
+        assertFalse(Files.exists(output.resolve(ComponentFactoryProcessor.COMPONENT_INDEX)));
+    }
+
+    @Test
+    void should_fail_compilation_on_cyclic_dependencies_not_deferred_by_provider() {
+        assertFalse(compile("""
+            package verified;
+            public class First {
+                @jakarta.inject.Inject
+                public First(Second second) {
+                }
+            }""", """
+            package verified;
+            public class Second {
+                @jakarta.inject.Inject
+                jakarta.inject.Provider<First> first;
+                @jakarta.inject.Inject
+                Third third;
+            }""", """
+            package verified;
+            public class Third {
+                @jakarta.inject.Inject
+                void install(First first) {
+                }
+            }"""));
+
+        assertEquals(List.of("cyclic dependencies verified.First -> verified.Second -> verified.Third -> verified.First"), errors());
+    }
+
+    @Test
+    void should_put_registry_of_components_into_their_common_package() throws IOException {
+        assertTrue(compile(List.of("-A" + ComponentFactoryProcessor.SCAN + "=com.app"), """
+            package com.app.api;
+            public class Repository {
+                @jakarta.inject.Inject
+                public Repository() {
+                }
+            }""", """
+            package com.app.impl;
+            public class Service {
+                @jakarta.inject.Inject
+                public Service(com.app.api.Repository repository) {
+                }
+            }"""));
+
+        assertEquals(List.of("com.app." + ComponentFactoryProcessor.REGISTRY_NAME),
+            Files.readAllLines(output.resolve(ComponentFactoryProcessor.REGISTRY_SERVICE)));
+    }
+
+    @Test
+    void should_fail_compilation_if_no_package_holds_the_registry_unless_named() {
+        String[] sources = {"""
+            package first;
+            public class Repository {
+                @jakarta.inject.Inject
+                public Repository() {
+                }
+            }""", """
+            package second;
+            public class Service {
+                @jakarta.inject.Inject
+                public Service(first.Repository repository) {
+                }
+            }"""};
+
+        assertFalse(compile(List.of("-A" + ComponentFactoryProcessor.SCAN + "=first,second"), sources));
+        assertEquals(List.of("components share no package to put the component registry in, name it with -A"
+            + ComponentFactoryProcessor.REGISTRY), errors());
+
+        diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(List.of("-A" + ComponentFactoryProcessor.SCAN + "=first,second",
+            "-A" + ComponentFactoryProcessor.REGISTRY + "=app.Registry"), sources));
+    }
+
+    @Test
+    void should_fail_compilation_on_qualified_multibinding() {
+        assertFalse(compile(plugins("@jakarta.inject.Named(\"x\") java.util.List<Plugin>")));
+
+        assertEquals(List.of("qualified dependency of type java.util.List<shapes.Plugin>"), errors());
+    }
+
+    @Test
+    void should_fail_compilation_on_qualified_deferred_multibinding() {
+        assertFalse(compile(plugins("@jakarta.inject.Named(\"x\") jakarta.inject.Provider<java.util.Set<Plugin>>")));
+
+        assertEquals(List.of("qualified dependency of type jakarta.inject.Provider<java.util.Set<shapes.Plugin>>"), errors());
+    }
+
+    @Test
+    void should_fail_compilation_on_containers_nested_deeper_than_deferred_multibinding() {
+        assertFalse(compile(plugins("jakarta.inject.Provider<java.util.List<jakarta.inject.Provider<Plugin>>>")));
+
+        assertEquals(List.of("dependency of type jakarta.inject.Provider<java.util.List<jakarta.inject.Provider<shapes.Plugin>>>"),
+            errors());
+    }
+
+    @Test
+    void should_fail_compilation_on_multibinding_of_containers() {
+        assertFalse(compile(plugins("java.util.List<jakarta.inject.Provider<Plugin>>")));
+
+        assertEquals(List.of("dependency of type java.util.List<jakarta.inject.Provider<shapes.Plugin>>"), errors());
+    }
+
+    @Test
+    void should_accept_only_the_dependencies_the_context_accepts_without_verified_index() throws Exception {
+        List<String> shapes = List.of("java.util.List<Plugin>", "jakarta.inject.Provider<java.util.List<Plugin>>",
+            "@jakarta.inject.Named(\"x\") java.util.List<Plugin>",
+            "@jakarta.inject.Named(\"x\") jakarta.inject.Provider<java.util.Set<Plugin>>",
+            "jakarta.inject.Provider<java.util.List<jakarta.inject.Provider<Plugin>>>",
+            "java.util.List<jakarta.inject.Provider<Plugin>>");
+        for (String shape : shapes) {
+            setup();
+            boolean verified = compile(plugins(shape));
+
+            assertEquals(verified, validates(plugins(shape)), shape);
+        }
+    }
+
+    /**
+     * a plugin and a host taking them as the given dependency, all in package shapes
+     */
+    private static String[] plugins(String dependency) {
+        return new String[] {"""
+            package shapes;
+            public interface Plugin {
+            }""", """
+            package shapes;
+            public class FirstPlugin implements Plugin {
+                @jakarta.inject.Inject
+                public FirstPlugin() {
+                }
+            }""", """
+            package shapes;
+            public class Host {
+                @jakarta.inject.Inject
+                public Host(%s plugins) {
+                }
+            }""".formatted(dependency)};
+    }
+
+    /**
+     * compiles the sources without the processor and creates the context scanning them, as without a verified index
+     */
+    private boolean validates(String... sources) throws IOException {
+        Path classes = Files.createDirectories(output.resolve("classes"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<JavaFileObject> units = Arrays.stream(sources).map(Source::new).map(JavaFileObject.class::cast).toList();
+        assertTrue(compiler.getTask(null, null, null, List.of("-proc:none", "-classpath", System.getProperty("java.class.path"),
+            "-d", classes.toString()), null, units).call());
+        Thread thread = Thread.currentThread();
+        ClassLoader loader = thread.getContextClassLoader();
+        try (URLClassLoader compiled = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+            thread.setContextClassLoader(compiled);
+            ContextConfig config = new ContextConfig();
+            config.scan("shapes");
+            config.getContext();
+            return true;
+        } catch (IllegalComponentException e) {
+            return false;
+        } finally {
+            thread.setContextClassLoader(loader);
+        }
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String code) {
+            super(URI.create("string:///" + code.lines().filter(l -> l.startsWith("public class") || l.startsWith("public interface"))
+                .findFirst().orElseThrow().split(" ")[2] + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
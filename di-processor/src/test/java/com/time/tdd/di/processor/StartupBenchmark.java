@@ -0,0 +1,39 @@
+package com.time.tdd.di.processor;
+
+import com.time.tdd.di.container.ComponentRef;
+import com.time.tdd.di.container.Context;
+import com.time.tdd.di.container.ContextConfig;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cold start of a small graph, run once per fresh jvm with {@code reflective} or {@code generated}:
+ * <pre>gradle :processor:startupBenchmark</pre>
+ *
+ * @author XuJian
+ * @date 2023-03-18 18:05
+ **/
+public class StartupBenchmark {
+
+    public static void main(String[] args) {
+        boolean generated = args.length > 0 && args[0].equals("generated");
+        long start = System.nanoTime();
+
+        ContextConfig config = new ContextConfig();
+        if (generated) {
+            config.useGeneratedFactories();
+        }
+        config.bind(Engine.class, V8Engine.class);
+        config.bind(Wheel.class, Wheel.class);
+        config.bind(Driver.class, Driver.class);
+        config.bind(Car.class, Car.class);
+        Context context = config.getContext();
+        Car car = context.get(ComponentRef.of(Car.class)).orElseThrow();
+        car.driver.get();
+
+        long container = System.nanoTime() - start;
+        long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.printf("%-10s container: %6d us, since jvm start: %4d ms%n", generated ? "generated" : "reflective",
+            TimeUnit.NANOSECONDS.toMicros(container), sinceJvmStart);
+    }
+}